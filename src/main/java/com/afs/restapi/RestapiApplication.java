@@ -2,12 +2,21 @@ package com.afs.restapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class RestapiApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(RestapiApplication.class, args);
+		SpringApplication application = new SpringApplication(RestapiApplication.class);
+		if (Boolean.getBoolean("restapi.startup.profiling")) {
+			application.setApplicationStartup(new BufferingApplicationStartup(10000));
+		}
+		application.run(args);
 	}
 
 }
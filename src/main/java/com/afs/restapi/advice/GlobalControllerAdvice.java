@@ -2,6 +2,8 @@ package com.afs.restapi.advice;
 
 import com.afs.restapi.exception.CompanyNotFoundException;
 import com.afs.restapi.exception.EmployeeNotFoundException;
+import com.afs.restapi.exception.InvalidRequestException;
+import com.afs.restapi.exception.JobNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -11,8 +13,14 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 public class GlobalControllerAdvice {
 
     @ResponseStatus(HttpStatus.NOT_FOUND)
-    @ExceptionHandler({EmployeeNotFoundException.class, CompanyNotFoundException.class})
+    @ExceptionHandler({EmployeeNotFoundException.class, CompanyNotFoundException.class, JobNotFoundException.class})
     public ErrorResponse handleNotFoundException(Exception exception) {
         return new ErrorResponse(HttpStatus.NOT_FOUND.value(), exception.getMessage());
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidRequestException.class)
+    public ErrorResponse handleInvalidRequestException(Exception exception) {
+        return new ErrorResponse(HttpStatus.BAD_REQUEST.value(), exception.getMessage());
+    }
 }
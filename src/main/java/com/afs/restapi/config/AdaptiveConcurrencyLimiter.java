@@ -0,0 +1,114 @@
+package com.afs.restapi.config;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient concurrency limit: the limit shrinks when the observed latency rises above
+ * {@code tolerance} times the no-load latency and grows by roughly its square root while latency
+ * stays close to it. By Little's law the limit then settles near throughput x no-load latency plus a
+ * small queue, so requests beyond it are rejected instead of waiting in the container.
+ * <p>
+ * The no-load latency is re-learned every {@code minRttResetWindows} windows: admission drops to
+ * {@code minLimit} until a window of requests has completed with the queue drained, and the no-load
+ * latency becomes a low percentile of those requests. Re-learning from loaded requests instead would
+ * count the standing queue as no-load latency and let the limit ratchet up after every reset.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final AdmissionControlProperties.Limit settings;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    private volatile boolean probing;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long windowRttNanos;
+    private int windowSamples;
+    private int windowsSinceMinRttReset;
+    private final long[] probeRttNanos;
+    private int probeSamples;
+    private volatile long averageRttNanos;
+
+    public AdaptiveConcurrencyLimiter(AdmissionControlProperties.Limit settings) {
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+        this.probeRttNanos = new long[Math.max(1, settings.getSampleWindow())];
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (probing ? settings.getMinLimit() : (int) limit)) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos) {
+        int inflightAtRelease = inflight.getAndDecrement();
+        sample(rttNanos, inflightAtRelease);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getAverageRttNanos() {
+        return averageRttNanos;
+    }
+
+    private synchronized void sample(long rttNanos, int inflightAtRelease) {
+        if (probing) {
+            probe(rttNanos, inflightAtRelease);
+            return;
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+        windowRttNanos += rttNanos;
+        if (++windowSamples < settings.getSampleWindow()) {
+            return;
+        }
+        long windowAverage = windowRttNanos / windowSamples;
+        windowRttNanos = 0;
+        windowSamples = 0;
+        averageRttNanos = windowAverage;
+
+        double gradient = Math.max(0.5, Math.min(1.0, settings.getTolerance() * minRttNanos / windowAverage));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        if (newLimit > limit && inflightAtRelease < limit / 2) {
+            // the limit is not what holds traffic back, growing it would only allow a larger burst later
+            newLimit = limit;
+        }
+        newLimit = limit * (1 - settings.getSmoothing()) + newLimit * settings.getSmoothing();
+        limit = Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(), newLimit));
+
+        if (++windowsSinceMinRttReset >= settings.getMinRttResetWindows()) {
+            // re-learn the no-load latency so a permanently slower database does not pin the limit low
+            windowsSinceMinRttReset = 0;
+            probeSamples = 0;
+            probing = true;
+        }
+    }
+
+    /**
+     * Collects the latencies of requests that ran while no more than {@code minLimit} were in flight;
+     * requests admitted before the probe started still carry the old queue and are skipped.
+     */
+    private void probe(long rttNanos, int inflightAtRelease) {
+        if (inflightAtRelease > settings.getMinLimit()) {
+            return;
+        }
+        probeRttNanos[probeSamples] = rttNanos;
+        if (++probeSamples < probeRttNanos.length) {
+            return;
+        }
+        long[] sorted = probeRttNanos.clone();
+        Arrays.sort(sorted);
+        minRttNanos = sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * settings.getMinRttPercentile()))];
+        probing = false;
+    }
+}
@@ -0,0 +1,112 @@
+package com.afs.restapi.config;
+
+import com.afs.restapi.advice.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Admits requests to the employee and company endpoints only while the adaptive limit of their
+ * endpoint class allows it. Unbounded listings are limited separately from cheap single-row reads so a
+ * burst of expensive calls cannot take all the capacity. Rejected requests get a 503 with Retry-After.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final Pattern COMPANY_EMPLOYEES = Pattern.compile("/companies/[^/]+/employees/?");
+
+    private final AdmissionControlProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AdaptiveConcurrencyLimiter expensiveLimiter;
+    private final AdaptiveConcurrencyLimiter cheapLimiter;
+    private final Counter expensiveRejections;
+    private final Counter cheapRejections;
+
+    public AdmissionControlFilter(AdmissionControlProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.expensiveLimiter = new AdaptiveConcurrencyLimiter(properties.getExpensive());
+        this.cheapLimiter = new AdaptiveConcurrencyLimiter(properties.getCheap());
+        this.expensiveRejections = register(meterRegistry, "expensive", expensiveLimiter);
+        this.cheapRejections = register(meterRegistry, "cheap", cheapLimiter);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = pathOf(request);
+        return !properties.isEnabled() || !(path.startsWith("/employees") || path.startsWith("/companies"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean expensive = isExpensive(request);
+        AdaptiveConcurrencyLimiter limiter = expensive ? expensiveLimiter : cheapLimiter;
+        if (!limiter.tryAcquire()) {
+            (expensive ? expensiveRejections : cheapRejections).increment();
+            reject(response, limiter);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    static boolean isExpensive(HttpServletRequest request) {
+        String path = pathOf(request);
+        String method = request.getMethod();
+        if ("GET".equals(method)) {
+            boolean collection = path.equals("/employees") || path.equals("/employees/")
+                    || path.equals("/companies") || path.equals("/companies/");
+            boolean bounded = request.getParameter("pageNumber") != null || request.getParameter("ids") != null;
+            return (collection && !bounded)
+                    || COMPANY_EMPLOYEES.matcher(path).matches();
+        }
+        return "POST".equals(method) && path.startsWith("/employees/adjustments");
+    }
+
+    private void reject(HttpServletResponse response, AdaptiveConcurrencyLimiter limiter) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(limiter.getAverageRttNanos()));
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), "server is overloaded, retry later"));
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static Counter register(MeterRegistry meterRegistry, String endpointClass, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("restapi.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("endpoint", endpointClass)
+                .register(meterRegistry);
+        Gauge.builder("restapi.admission.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+                .tag("endpoint", endpointClass)
+                .register(meterRegistry);
+        Gauge.builder("restapi.admission.rtt", limiter, value -> value.getAverageRttNanos() / 1_000_000.0)
+                .tag("endpoint", endpointClass)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        return Counter.builder("restapi.admission.rejected")
+                .tag("endpoint", endpointClass)
+                .register(meterRegistry);
+    }
+}
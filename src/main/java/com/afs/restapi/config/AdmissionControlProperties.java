@@ -0,0 +1,118 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("restapi.admission-control")
+public class AdmissionControlProperties {
+    private boolean enabled = true;
+    private Limit expensive = new Limit(10, 2, 50);
+    private Limit cheap = new Limit(50, 5, 400);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Limit getExpensive() {
+        return expensive;
+    }
+
+    public void setExpensive(Limit expensive) {
+        this.expensive = expensive;
+    }
+
+    public Limit getCheap() {
+        return cheap;
+    }
+
+    public void setCheap(Limit cheap) {
+        this.cheap = cheap;
+    }
+
+    public static class Limit {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        private double tolerance = 2.0;
+        private double smoothing = 0.2;
+        private int sampleWindow = 20;
+        private int minRttResetWindows = 500;
+        private double minRttPercentile = 0.1;
+
+        public Limit() {
+        }
+
+        public Limit(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public int getSampleWindow() {
+            return sampleWindow;
+        }
+
+        public void setSampleWindow(int sampleWindow) {
+            this.sampleWindow = sampleWindow;
+        }
+
+        public int getMinRttResetWindows() {
+            return minRttResetWindows;
+        }
+
+        public void setMinRttResetWindows(int minRttResetWindows) {
+            this.minRttResetWindows = minRttResetWindows;
+        }
+
+        public double getMinRttPercentile() {
+            return minRttPercentile;
+        }
+
+        public void setMinRttPercentile(double minRttPercentile) {
+            this.minRttPercentile = minRttPercentile;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("restapi.bulk-adjustment")
+public class BulkAdjustmentProperties {
+    private int chunkSize = 10000;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,81 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("restapi.change-feed")
+public class ChangeFeedProperties {
+    private Duration pollInterval = Duration.ofMillis(200);
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+    private int batchSize = 500;
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+    private Duration gapTimeout = Duration.ofSeconds(5);
+    private Duration retention = Duration.ofDays(1);
+    private int subscriberQueueSize = 64;
+    private int senderThreads = 4;
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getEmitterTimeout() {
+        return emitterTimeout;
+    }
+
+    public void setEmitterTimeout(Duration emitterTimeout) {
+        this.emitterTimeout = emitterTimeout;
+    }
+
+    public Duration getGapTimeout() {
+        return gapTimeout;
+    }
+
+    public void setGapTimeout(Duration gapTimeout) {
+        this.gapTimeout = gapTimeout;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public int getSubscriberQueueSize() {
+        return subscriberQueueSize;
+    }
+
+    public void setSubscriberQueueSize(int subscriberQueueSize) {
+        this.subscriberQueueSize = subscriberQueueSize;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+}
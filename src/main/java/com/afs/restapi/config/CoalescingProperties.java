@@ -0,0 +1,42 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties("restapi.coalescing")
+public class CoalescingProperties {
+    private boolean enabled = true;
+    private Duration defaultTimeout = Duration.ofSeconds(5);
+    private Map<String, Duration> timeouts = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public void setDefaultTimeout(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public Map<String, Duration> getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(Map<String, Duration> timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public Duration timeoutFor(String operation) {
+        return timeouts.getOrDefault(operation, defaultTimeout);
+    }
+}
@@ -0,0 +1,72 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("restapi.existence-filter")
+public class ExistenceFilterProperties {
+    private boolean enabled = true;
+    private double falsePositiveProbability = 0.01;
+    private long minCapacity = 100_000;
+    private double rebuildDeleteRatio = 0.2;
+    private int scanPageSize = 10_000;
+    private Duration replayWindow = Duration.ofMinutes(5);
+    private Duration maintenanceInterval = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    public void setFalsePositiveProbability(double falsePositiveProbability) {
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    public long getMinCapacity() {
+        return minCapacity;
+    }
+
+    public void setMinCapacity(long minCapacity) {
+        this.minCapacity = minCapacity;
+    }
+
+    public double getRebuildDeleteRatio() {
+        return rebuildDeleteRatio;
+    }
+
+    public void setRebuildDeleteRatio(double rebuildDeleteRatio) {
+        this.rebuildDeleteRatio = rebuildDeleteRatio;
+    }
+
+    public int getScanPageSize() {
+        return scanPageSize;
+    }
+
+    public void setScanPageSize(int scanPageSize) {
+        this.scanPageSize = scanPageSize;
+    }
+
+    public Duration getReplayWindow() {
+        return replayWindow;
+    }
+
+    public void setReplayWindow(Duration replayWindow) {
+        this.replayWindow = replayWindow;
+    }
+
+    public Duration getMaintenanceInterval() {
+        return maintenanceInterval;
+    }
+
+    public void setMaintenanceInterval(Duration maintenanceInterval) {
+        this.maintenanceInterval = maintenanceInterval;
+    }
+}
@@ -0,0 +1,24 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Keeps beans with {@link Scheduled} methods eager when {@code spring.main.lazy-initialization} is on:
+ * scheduled methods are only registered once their bean is created, so a lazy dispatcher or flusher
+ * would silently never run.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FastStartupConfiguration {
+
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> !MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
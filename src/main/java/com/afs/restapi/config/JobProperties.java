@@ -0,0 +1,86 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties("restapi.jobs")
+public class JobProperties {
+    private int concurrency = 2;
+    private int chunkSize = 1000;
+    private int maxImportSize = 100000;
+    private Path exportDirectory = Path.of("data", "exports");
+    private Duration dispatchInterval = Duration.ofSeconds(1);
+    /**
+     * Name under which this instance leases jobs; a random one per start when unset. A stable, unique name
+     * lets a restarted instance resume its own jobs without waiting for their leases to expire.
+     */
+    private String instanceId;
+    private Duration leaseTimeout = Duration.ofMinutes(1);
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getMaxImportSize() {
+        return maxImportSize;
+    }
+
+    public void setMaxImportSize(int maxImportSize) {
+        this.maxImportSize = maxImportSize;
+    }
+
+    public Path getExportDirectory() {
+        return exportDirectory;
+    }
+
+    public void setExportDirectory(Path exportDirectory) {
+        this.exportDirectory = exportDirectory;
+    }
+
+    public Duration getDispatchInterval() {
+        return dispatchInterval;
+    }
+
+    public void setDispatchInterval(Duration dispatchInterval) {
+        this.dispatchInterval = dispatchInterval;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public Duration getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    public void setLeaseTimeout(Duration leaseTimeout) {
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+}
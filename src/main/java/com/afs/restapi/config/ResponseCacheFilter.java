@@ -0,0 +1,151 @@
+package com.afs.restapi.config;
+
+import com.afs.restapi.service.ResponseCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves single employees and companies and their first list pages from {@link ResponseCache}. A hit
+ * copies the stored bytes, gzipped when the client accepts it, straight to the response without reaching
+ * a controller; a miss runs the request and stores its body if it succeeded. Runs ahead of the other
+ * filters so that hits skip admission control and statement accounting.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    static final String CACHE_HEADER = "X-Response-Cache";
+    private static final Pattern SINGLE = Pattern.compile("/(employees|companies)/(\\d{1,18})");
+    private static final Set<String> PAGE_PARAMETERS = Set.of("pageNumber", "pageSize");
+    private static final Set<String> PAGE_PARAMETERS_WITH_INCLUDE = Set.of("pageNumber", "pageSize", "include");
+    private static final Set<String> INCLUDE_PARAMETER = Set.of("include");
+
+    private final ResponseCache responseCache;
+    private final ResponseCacheProperties properties;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ResponseCacheFilter(ResponseCache responseCache, ResponseCacheProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+        this.hits = Counter.builder("restapi.response-cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("restapi.response-cache.requests").tag("result", "miss").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !responseCache.isEnabled() || !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ResponseCache.Key key = keyOf(request);
+        if (key == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ResponseCache.CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            hits.increment();
+            write(request, response, cached);
+            return;
+        }
+        misses.increment();
+        long stamp = responseCache.currentStamp();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        wrapper.setHeader(CACHE_HEADER, "MISS");
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpStatus.OK.value() && wrapper.getContentType() != null
+                && !request.isAsyncStarted()) {
+            responseCache.put(key, stamp, wrapper.getContentAsByteArray(), wrapper.getContentType());
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response,
+                              ResponseCache.CachedResponse cached) throws IOException {
+        byte[] body = cached.getBody();
+        if (cached.isCompressible()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                body = cached.getGzipped();
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setHeader(CACHE_HEADER, "HIT");
+        response.setContentType(cached.getContentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * The cache key of a cacheable request, or {@code null}. Only the exact parameter sets of the single
+     * resource and page endpoints qualify, since any other parameter selects a different handler.
+     */
+    ResponseCache.Key keyOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Map<String, String[]> parameters = request.getParameterMap();
+        if (!isIncludeValid(request.getParameter("include"))
+                || parameters.values().stream().anyMatch(values -> values.length != 1)) {
+            return null;
+        }
+        boolean withEmployees = request.getParameter("include") != null;
+        Matcher single = SINGLE.matcher(path);
+        if (single.matches()) {
+            long id = Long.parseLong(single.group(2));
+            if ("employees".equals(single.group(1))) {
+                return parameters.isEmpty() ? ResponseCache.Key.employee(id) : null;
+            }
+            return parameters.isEmpty() || parameters.keySet().equals(INCLUDE_PARAMETER)
+                    ? ResponseCache.Key.company(id, withEmployees)
+                    : null;
+        }
+        boolean employeesPage = path.equals("/employees") && parameters.keySet().equals(PAGE_PARAMETERS);
+        boolean companiesPage = path.equals("/companies") && (parameters.keySet().equals(PAGE_PARAMETERS)
+                || parameters.keySet().equals(PAGE_PARAMETERS_WITH_INCLUDE));
+        if (!employeesPage && !companiesPage) {
+            return null;
+        }
+        Integer pageNumber = parse(request.getParameter("pageNumber"));
+        Integer pageSize = parse(request.getParameter("pageSize"));
+        if (pageNumber == null || pageSize == null || pageNumber < 1 || pageNumber > properties.getMaxPageNumber()
+                || pageSize < 1 || pageSize > properties.getMaxPageSize()) {
+            return null;
+        }
+        return employeesPage
+                ? ResponseCache.Key.employeePage(pageNumber, pageSize)
+                : ResponseCache.Key.companyPage(pageNumber, pageSize, withEmployees);
+    }
+
+    private static boolean isIncludeValid(String include) {
+        return include == null || "employees".equals(include);
+    }
+
+    private static Integer parse(String value) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("restapi.response-cache")
+public class ResponseCacheProperties {
+    private boolean enabled = false;
+    private int maxEntries = 10000;
+    private long maxBytes = 64 * 1024 * 1024;
+    private int maxPageNumber = 10;
+    private int maxPageSize = 100;
+    private int gzipMinBytes = 1024;
+    private int versionStripes = 4096;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public int getMaxPageNumber() {
+        return maxPageNumber;
+    }
+
+    public void setMaxPageNumber(int maxPageNumber) {
+        this.maxPageNumber = maxPageNumber;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    public int getGzipMinBytes() {
+        return gzipMinBytes;
+    }
+
+    public void setGzipMinBytes(int gzipMinBytes) {
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    public int getVersionStripes() {
+        return versionStripes;
+    }
+
+    public void setVersionStripes(int versionStripes) {
+        this.versionStripes = versionStripes;
+    }
+}
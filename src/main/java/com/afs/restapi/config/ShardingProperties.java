@@ -0,0 +1,118 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties("restapi.sharding")
+public class ShardingProperties {
+    private boolean enabled = false;
+    private List<Shard> shards = new ArrayList<>();
+    private Map<Long, Integer> companyShards = new HashMap<>();
+    private long idRangeSize = 100_000_000L;
+    private int fanOutThreads = 8;
+    /**
+     * How many rows deep a scatter-gather page may reach. Every shard reads all rows up to the end of the
+     * page, so deeper pages are refused rather than read and thrown away.
+     */
+    private int maxPageDepth = 10_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public Map<Long, Integer> getCompanyShards() {
+        return companyShards;
+    }
+
+    public void setCompanyShards(Map<Long, Integer> companyShards) {
+        this.companyShards = companyShards;
+    }
+
+    public long getIdRangeSize() {
+        return idRangeSize;
+    }
+
+    public void setIdRangeSize(long idRangeSize) {
+        this.idRangeSize = idRangeSize;
+    }
+
+    public int getFanOutThreads() {
+        return fanOutThreads;
+    }
+
+    public void setFanOutThreads(int fanOutThreads) {
+        this.fanOutThreads = fanOutThreads;
+    }
+
+    public int getMaxPageDepth() {
+        return maxPageDepth;
+    }
+
+    public void setMaxPageDepth(int maxPageDepth) {
+        this.maxPageDepth = maxPageDepth;
+    }
+
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getDriverClassName() {
+            return driverClassName;
+        }
+
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
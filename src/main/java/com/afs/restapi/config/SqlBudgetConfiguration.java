@@ -0,0 +1,30 @@
+package com.afs.restapi.config;
+
+import com.afs.restapi.jdbc.StatementCountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration(proxyBeanMethods = false)
+public class SqlBudgetConfiguration {
+
+    /**
+     * Wraps every datasource bean so the statements of a request are counted, and bounded by the caller's
+     * query deadline, whichever datasource the repositories end up on. Registered even with budgets
+     * disabled: without a recording or a deadline the wrapper costs one thread-local lookup per call.
+     */
+    @Bean
+    static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package com.afs.restapi.config;
+
+import com.afs.restapi.exception.SqlBudgetExceededException;
+import com.afs.restapi.jdbc.SqlStatistics;
+import com.afs.restapi.jdbc.SqlStatisticsRecorder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records the statements, rows and JDBC time of each request and checks them against the budget of
+ * its endpoint. An exceeded budget is logged with the statement patterns that were executed, or fails
+ * the request in {@code fail} mode, which the tests use to catch N+1 regressions. To fail a request whose
+ * handler already wrote its body, {@code fail} mode buffers the response until the check has passed; an
+ * event stream cannot be buffered, so a stream over budget is only logged.
+ */
+@Component
+@ConditionalOnProperty(prefix = "restapi.sql-budget", name = "enabled", matchIfMissing = true)
+public class SqlBudgetFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(SqlBudgetFilter.class);
+
+    private final SqlBudgetProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public SqlBudgetFilter(SqlBudgetProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffer = properties.getMode() == SqlBudgetProperties.Mode.FAIL
+                && !isEventStream(request) ? new ContentCachingResponseWrapper(response) : null;
+        SqlStatistics statistics = SqlStatisticsRecorder.start();
+        try {
+            filterChain.doFilter(request, buffer != null ? buffer : response);
+        } finally {
+            SqlStatisticsRecorder.stop(statistics);
+        }
+        String endpoint = endpointOf(request);
+        SqlStatisticsRecorder.requestCompleted(endpoint, statistics);
+        record(endpoint, statistics);
+        check(endpoint, statistics, response.isCommitted());
+        if (buffer != null) {
+            buffer.copyBodyToResponse();
+        }
+    }
+
+    private void record(String endpoint, SqlStatistics statistics) {
+        DistributionSummary.builder("restapi.sql.statements")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("restapi.sql.rows")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(statistics.getRows());
+        Timer.builder("restapi.sql.time")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void check(String endpoint, SqlStatistics statistics, boolean committed) {
+        SqlBudgetProperties.Budget budget = properties.budgetFor(endpoint);
+        boolean statementsExceeded = budget.getStatements() != null && statistics.getStatements() > budget.getStatements();
+        boolean rowsExceeded = budget.getRows() != null && statistics.getRows() > budget.getRows();
+        if (!statementsExceeded && !rowsExceeded) {
+            return;
+        }
+        String message = String.format("%s exceeded its SQL budget: %d statements (budget %s), %d rows (budget %s); %s",
+                endpoint, statistics.getStatements(), budget.getStatements(), statistics.getRows(), budget.getRows(),
+                describe(statistics));
+        if (properties.getMode() == SqlBudgetProperties.Mode.FAIL && !committed) {
+            throw new SqlBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+
+    public static String describe(SqlStatistics statistics) {
+        return statistics.getStatementPatterns().entrySet().stream()
+                .map(pattern -> pattern.getValue() + " x " + pattern.getKey())
+                .collect(Collectors.joining("; ", "statements: ", ""));
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    /**
+     * The method and the matched handler pattern, so {@code /employees/1} and {@code /employees/2} share
+     * one budget and one set of meters.
+     */
+    static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "<unmapped>");
+    }
+}
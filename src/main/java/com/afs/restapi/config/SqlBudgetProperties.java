@@ -0,0 +1,104 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties("restapi.sql-budget")
+public class SqlBudgetProperties {
+    private boolean enabled = true;
+    private Mode mode = Mode.LOG;
+    private Budget defaultBudget = new Budget(null, 20, null);
+    private List<Budget> budgets = new ArrayList<>();
+
+    public enum Mode {
+        LOG, FAIL
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Budget getDefaultBudget() {
+        return defaultBudget;
+    }
+
+    public void setDefaultBudget(Budget defaultBudget) {
+        this.defaultBudget = defaultBudget;
+    }
+
+    public List<Budget> getBudgets() {
+        return budgets;
+    }
+
+    public void setBudgets(List<Budget> budgets) {
+        this.budgets = budgets;
+    }
+
+    /**
+     * The budget of an endpoint such as {@code GET /companies/{id}}, falling back to the default budget
+     * for endpoints or limits that are not configured.
+     */
+    public Budget budgetFor(String endpoint) {
+        for (Budget budget : budgets) {
+            if (endpoint.equals(budget.getEndpoint())) {
+                return new Budget(endpoint,
+                        budget.getStatements() != null ? budget.getStatements() : defaultBudget.getStatements(),
+                        budget.getRows() != null ? budget.getRows() : defaultBudget.getRows());
+            }
+        }
+        return defaultBudget;
+    }
+
+    public static class Budget {
+        private String endpoint;
+        private Integer statements;
+        private Long rows;
+
+        public Budget() {
+        }
+
+        public Budget(String endpoint, Integer statements, Long rows) {
+            this.endpoint = endpoint;
+            this.statements = statements;
+            this.rows = rows;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public Integer getStatements() {
+            return statements;
+        }
+
+        public void setStatements(Integer statements) {
+            this.statements = statements;
+        }
+
+        public Long getRows() {
+            return rows;
+        }
+
+        public void setRows(Long rows) {
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("restapi.startup")
+public class StartupProperties {
+    /**
+     * Shuts the application down and exits the JVM as soon as it is ready. Off by default and never set
+     * by a profile; only the startup benchmark and the AppCDS training run pass it on the command line.
+     */
+    private boolean exitAfterReady = false;
+    private String reportFile;
+    private int topSteps = 15;
+
+    public boolean isExitAfterReady() {
+        return exitAfterReady;
+    }
+
+    public void setExitAfterReady(boolean exitAfterReady) {
+        this.exitAfterReady = exitAfterReady;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    public int getTopSteps() {
+        return topSteps;
+    }
+
+    public void setTopSteps(int topSteps) {
+        this.topSteps = topSteps;
+    }
+}
@@ -0,0 +1,103 @@
+package com.afs.restapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reports how long the application took to become ready and, when started with
+ * {@code -Drestapi.startup.profiling=true}, which startup steps and bean instantiations took the time.
+ * <p>
+ * With {@code restapi.startup.exit-after-ready=true}, and only then, it closes the context and calls
+ * {@link System#exit} once the report is written, so measuring runs end on their own.
+ */
+@Component
+public class StartupReporter {
+    private static final Logger log = LoggerFactory.getLogger(StartupReporter.class);
+
+    private final StartupProperties properties;
+
+    public StartupReporter(StartupProperties properties) {
+        this.properties = properties;
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        Properties report = new Properties();
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        report.setProperty("ready.millis", String.valueOf(readyMillis));
+        log.info("Application ready {} ms after JVM start", readyMillis);
+
+        ApplicationStartup applicationStartup = context.getApplicationStartup();
+        if (applicationStartup instanceof BufferingApplicationStartup) {
+            StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+            Map<String, Long> steps = new HashMap<>();
+            Map<String, Long> beans = new HashMap<>();
+            for (StartupTimeline.TimelineEvent timelineEvent : timeline.getEvents()) {
+                StartupStep step = timelineEvent.getStartupStep();
+                long millis = timelineEvent.getDuration().toMillis();
+                steps.merge(step.getName(), millis, Long::sum);
+                if ("spring.beans.instantiate".equals(step.getName())) {
+                    for (StartupStep.Tag tag : step.getTags()) {
+                        if ("beanName".equals(tag.getKey())) {
+                            beans.merge(tag.getValue(), millis, Long::sum);
+                        }
+                    }
+                }
+            }
+            addTop(report, "step.", steps);
+            addTop(report, "bean.", beans);
+        }
+
+        if (properties.getReportFile() != null) {
+            write(report, Path.of(properties.getReportFile()));
+        }
+        if (properties.isExitAfterReady()) {
+            log.info("Exiting after startup as restapi.startup.exit-after-ready is set");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void addTop(Properties report, String prefix, Map<String, Long> durations) {
+        durations.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(properties.getTopSteps())
+                .forEach(entry -> {
+                    report.setProperty(prefix + entry.getKey() + ".millis", String.valueOf(entry.getValue()));
+                    log.info("Startup {}{} took {} ms", prefix, entry.getKey(), entry.getValue());
+                });
+    }
+
+    private static void write(Properties report, Path reportFile) {
+        try {
+            if (reportFile.getParent() != null) {
+                Files.createDirectories(reportFile.getParent());
+            }
+            try (OutputStream outputStream = Files.newOutputStream(reportFile)) {
+                report.store(outputStream, "restapi startup report");
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.afs.restapi.config;
+
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.repository.ChangeEventRepository;
+import com.afs.restapi.service.CompanyService;
+import com.afs.restapi.service.EmployeeService;
+import com.afs.restapi.service.ResponseCache;
+import com.afs.restapi.service.dto.CompanyResponse;
+import com.afs.restapi.service.dto.EmployeeResponse;
+import com.afs.restapi.sharding.ShardDataSources;
+import com.afs.restapi.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Warms the application up before it reports ready. Application runners complete before Spring Boot
+ * publishes {@code ApplicationReadyEvent} and moves readiness to {@code ACCEPTING_TRAFFIC}, so a load
+ * balancer watching {@code /actuator/health/readiness} only sends traffic once this is done.
+ * <p>
+ * The warm-up opens connections in every pool, runs the employee and company read paths and serializes
+ * their responses repeatedly from several threads, so the JIT, Hibernate's query plans and the prepared
+ * statement caches of several connections see the same work real requests do, and finally stores the
+ * responses of the hot ids and first pages in {@link ResponseCache}. Hot ids are the most recently changed
+ * rows in the change log plus those of the first pages. The whole warm-up stops at
+ * {@code restapi.warmup.timeout}; an unfinished or failing warm-up is logged and never fails startup.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final WarmupProperties properties;
+    private final EmployeeService employeeService;
+    private final CompanyService companyService;
+    private final ChangeEventRepository changeEventRepository;
+    private final ResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final ObjectProvider<ShardDataSources> shardDataSources;
+    private final ShardRouter shardRouter;
+    private final MeterRegistry meterRegistry;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter primed;
+
+    public StartupWarmup(WarmupProperties properties, EmployeeService employeeService, CompanyService companyService,
+                         ChangeEventRepository changeEventRepository, ResponseCache responseCache,
+                         ObjectMapper objectMapper, DataSource dataSource,
+                         ObjectProvider<ShardDataSources> shardDataSources,
+                         ShardRouter shardRouter, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.employeeService = employeeService;
+        this.companyService = companyService;
+        this.changeEventRepository = changeEventRepository;
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.shardDataSources = shardDataSources;
+        this.shardRouter = shardRouter;
+        this.meterRegistry = meterRegistry;
+        this.succeeded = Counter.builder("restapi.warmup.operations").tag("outcome", "success").register(meterRegistry);
+        this.failed = Counter.builder("restapi.warmup.operations").tag("outcome", "failure").register(meterRegistry);
+        this.primed = Counter.builder("restapi.warmup.primed-responses").register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.isEnabled()) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Runs every warm-up phase until done or until the timeout passes.
+     *
+     * @return whether all phases finished in time
+     */
+    public boolean warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + properties.getTimeout().toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getThreads()), threadFactory());
+        boolean completed = false;
+        try {
+            HotIds hotIds = new HotIds();
+            completed = runPhase("connection-pool", executor, deadline, poolTasks())
+                    && runPhase("hot-ids", executor, deadline, List.of(() -> collectHotIds(hotIds)))
+                    && runPhase("read-paths", executor, deadline, readPathTasks(hotIds, deadline))
+                    && runPhase("cache-priming", executor, deadline, List.of(() -> primeResponseCache(hotIds)));
+        } finally {
+            executor.shutdownNow();
+            long elapsed = System.nanoTime() - start;
+            timer("total", completed).record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Warm-up {} after {} ms: {} operations, {} failed, {} responses cached",
+                    completed ? "finished" : "stopped", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    (long) (succeeded.count() + failed.count()), (long) failed.count(), (long) primed.count());
+        }
+        return completed;
+    }
+
+    private boolean runPhase(String phase, ExecutorService executor, long deadline, List<Callable<Void>> tasks) {
+        long start = System.nanoTime();
+        boolean completed = true;
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks, Math.max(0, deadline - start), TimeUnit.NANOSECONDS)) {
+                try {
+                    future.get();
+                } catch (CancellationException e) {
+                    completed = false;
+                } catch (ExecutionException e) {
+                    log.warn("Warm-up phase {} failed", phase, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        }
+        timer(phase, completed).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!completed) {
+            log.warn("Warm-up phase {} did not finish within {}", phase, properties.getTimeout());
+        }
+        return completed;
+    }
+
+    /**
+     * One task per pool that holds up to {@code pool-connections} connections at once, so the pool has
+     * opened them before the first request waits for one.
+     */
+    private List<Callable<Void>> poolTasks() {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (HikariDataSource pool : pools()) {
+            tasks.add(() -> {
+                int count = Math.min(properties.getPoolConnections(), pool.getMaximumPoolSize());
+                List<Connection> connections = new ArrayList<>();
+                try {
+                    for (int i = 0; i < count; i++) {
+                        connections.add(pool.getConnection());
+                    }
+                    succeeded.increment(connections.size());
+                } catch (SQLException e) {
+                    failed.increment();
+                    log.warn("Warm-up opened only {} connections in pool {}", connections.size(), pool.getPoolName(), e);
+                } finally {
+                    for (Connection connection : connections) {
+                        connection.close();
+                    }
+                }
+                return null;
+            });
+        }
+        return tasks;
+    }
+
+    private List<HikariDataSource> pools() {
+        ShardDataSources shards = shardDataSources.getIfAvailable();
+        List<HikariDataSource> pools = new ArrayList<>();
+        if (shards != null) {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                pools.add((HikariDataSource) shards.get(shard));
+            }
+            return pools;
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                pools.add(dataSource.unwrap(HikariDataSource.class));
+            }
+        } catch (SQLException e) {
+            log.warn("Warm-up cannot find the connection pool", e);
+        }
+        return pools;
+    }
+
+    private Void collectHotIds(HotIds hotIds) {
+        int firstPageSize = properties.getPageSizes().isEmpty() ? 0 : properties.getPageSizes().get(0);
+        List<EmployeeResponse> employeePage = firstPageSize == 0 ? List.of()
+                : attempt(() -> employeeService.findByPage(1, firstPageSize), List.of());
+        List<CompanyResponse> companyPage = firstPageSize == 0 ? List.of()
+                : attempt(() -> companyService.findByPage(1, firstPageSize), List.of());
+        List<Long> employeeIds = candidates(ChangeEntityType.EMPLOYEE,
+                employeePage.stream().map(EmployeeResponse::getId).collect(Collectors.toList()));
+        List<Long> companyIds = candidates(ChangeEntityType.COMPANY,
+                companyPage.stream().map(CompanyResponse::getId).collect(Collectors.toList()));
+        hotIds.employees = attempt(() -> employeeService.findAllByIds(employeeIds).getItems(),
+                List.<EmployeeResponse>of()).stream().map(EmployeeResponse::getId).collect(Collectors.toList());
+        hotIds.companies = attempt(() -> companyService.findAllByIds(companyIds).getItems(),
+                List.<CompanyResponse>of()).stream().map(CompanyResponse::getId).collect(Collectors.toList());
+        return null;
+    }
+
+    private List<Long> candidates(ChangeEntityType entityType, List<Long> firstPageIds) {
+        PageRequest recent = PageRequest.of(0, properties.getHotIdCount());
+        Set<Long> ids = new LinkedHashSet<>();
+        attempt(() -> shardRouter.onEveryShard(shard -> changeEventRepository.findRecentEntityIds(entityType, recent)),
+                List.<List<Long>>of()).forEach(ids::addAll);
+        ids.addAll(firstPageIds);
+        return ids.stream().limit(properties.getHotIdCount()).collect(Collectors.toList());
+    }
+
+    /**
+     * One task per warm-up thread, each cycling through the read paths with different hot ids.
+     */
+    private List<Callable<Void>> readPathTasks(HotIds hotIds, long deadline) {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < properties.getThreads(); thread++) {
+            int offset = thread;
+            tasks.add(() -> {
+                for (int i = 0; i < properties.getIterations() && !isStopped(deadline); i++) {
+                    exerciseReadPaths(hotIds, offset + i);
+                }
+                return null;
+            });
+        }
+        return tasks;
+    }
+
+    private void exerciseReadPaths(HotIds hotIds, int round) {
+        for (Integer pageSize : properties.getPageSizes()) {
+            serialize(() -> employeeService.findByPage(1, pageSize));
+            serialize(() -> companyService.findByPage(1, pageSize));
+            serialize(() -> companyService.findByPageWithEmployees(1, pageSize));
+        }
+        if (!hotIds.employees.isEmpty()) {
+            Long id = hotIds.employees.get(round % hotIds.employees.size());
+            serialize(() -> employeeService.findById(id));
+            serialize(() -> employeeService.findAllByIds(hotIds.employees));
+        }
+        if (!hotIds.companies.isEmpty()) {
+            Long id = hotIds.companies.get(round % hotIds.companies.size());
+            serialize(() -> companyService.findById(id));
+            serialize(() -> companyService.findByIdWithEmployees(id));
+            serialize(() -> companyService.findAllByIds(hotIds.companies));
+        }
+    }
+
+    /**
+     * Stores the responses of the hot ids and first pages as the controllers would have written them, taking
+     * each entry's stamp before its read so that concurrent changes still invalidate it.
+     */
+    private Void primeResponseCache(HotIds hotIds) {
+        if (!responseCache.isEnabled()) {
+            return null;
+        }
+        for (Integer pageSize : properties.getPageSizes()) {
+            prime(ResponseCache.Key.employeePage(1, pageSize), () -> employeeService.findByPage(1, pageSize));
+            prime(ResponseCache.Key.companyPage(1, pageSize, false), () -> companyService.findByPage(1, pageSize));
+        }
+        for (Long id : hotIds.employees) {
+            prime(ResponseCache.Key.employee(id), () -> employeeService.findById(id));
+        }
+        for (Long id : hotIds.companies) {
+            prime(ResponseCache.Key.company(id, false), () -> companyService.findById(id));
+        }
+        return null;
+    }
+
+    private void prime(ResponseCache.Key key, Callable<Object> read) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        long stamp = responseCache.currentStamp();
+        byte[] body = serialize(read);
+        if (body != null) {
+            responseCache.put(key, stamp, body, MediaType.APPLICATION_JSON_VALUE);
+            primed.increment();
+        }
+    }
+
+    private byte[] serialize(Callable<Object> read) {
+        return attempt(() -> objectMapper.writeValueAsBytes(read.call()), null);
+    }
+
+    private <T> T attempt(Callable<T> operation, T fallback) {
+        try {
+            T result = operation.call();
+            succeeded.increment();
+            return result;
+        } catch (Exception e) {
+            failed.increment();
+            log.debug("Warm-up operation failed", e);
+            return fallback;
+        }
+    }
+
+    private static boolean isStopped(long deadline) {
+        return Thread.currentThread().isInterrupted() || System.nanoTime() - deadline >= 0;
+    }
+
+    private Timer timer(String phase, boolean completed) {
+        return Timer.builder("restapi.warmup.duration")
+                .tag("phase", phase)
+                .tag("outcome", completed ? "completed" : "timed-out")
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "warmup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class HotIds {
+        private volatile List<Long> employees = Collections.emptyList();
+        private volatile List<Long> companies = Collections.emptyList();
+    }
+}
@@ -0,0 +1,73 @@
+package com.afs.restapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties("restapi.warmup")
+public class WarmupProperties {
+    private boolean enabled = false;
+    private Duration timeout = Duration.ofSeconds(30);
+    private int threads = 4;
+    private int iterations = 200;
+    private int poolConnections = 10;
+    private int hotIdCount = 100;
+    private List<Integer> pageSizes = List.of(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public int getPoolConnections() {
+        return poolConnections;
+    }
+
+    public void setPoolConnections(int poolConnections) {
+        this.poolConnections = poolConnections;
+    }
+
+    public int getHotIdCount() {
+        return hotIdCount;
+    }
+
+    public void setHotIdCount(int hotIdCount) {
+        this.hotIdCount = hotIdCount;
+    }
+
+    public List<Integer> getPageSizes() {
+        return pageSizes;
+    }
+
+    public void setPageSizes(List<Integer> pageSizes) {
+        this.pageSizes = pageSizes;
+    }
+}
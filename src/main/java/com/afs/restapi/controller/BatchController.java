@@ -0,0 +1,25 @@
+package com.afs.restapi.controller;
+
+import com.afs.restapi.service.dto.BatchRequest;
+import com.afs.restapi.service.dto.BatchResponse;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/batch")
+public class BatchController {
+
+    private final BatchDispatcher batchDispatcher;
+
+    public BatchController(BatchDispatcher batchDispatcher) {
+        this.batchDispatcher = batchDispatcher;
+    }
+
+    @PostMapping
+    public BatchResponse executeBatch(@RequestBody BatchRequest batchRequest, HttpServletRequest request,
+                                      HttpServletResponse response) {
+        return batchDispatcher.execute(batchRequest, request, response);
+    }
+}
@@ -0,0 +1,346 @@
+package com.afs.restapi.controller;
+
+import com.afs.restapi.config.AdmissionControlFilter;
+import com.afs.restapi.config.BatchProperties;
+import com.afs.restapi.config.ResponseCacheFilter;
+import com.afs.restapi.config.SqlBudgetFilter;
+import com.afs.restapi.exception.InvalidRequestException;
+import com.afs.restapi.jdbc.JdbcContext;
+import com.afs.restapi.service.EmployeeWriteBehindBuffer;
+import com.afs.restapi.service.dto.BatchItemRequest;
+import com.afs.restapi.service.dto.BatchItemResponse;
+import com.afs.restapi.service.dto.BatchRequest;
+import com.afs.restapi.service.dto.BatchResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.Filter;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the sub-requests of a {@code POST /batch} in-process against the employee and company handlers,
+ * through the same handler mapping, argument conversion, controller advice and response cache a regular
+ * request goes through, but without another HTTP round-trip. Each sub-request is also admitted and
+ * SQL-budgeted on its own by the admission control and SQL budget filters, under its own endpoint, so a
+ * batch cannot carry expensive listings past the limiter; a rejected sub-request is reported as 503.
+ * <p>
+ * Sub-requests run in order. A run of consecutive GETs has no writes between its reads, so the run is
+ * executed in parallel on a pool of {@code restapi.batch.parallelism} threads shared by all batches,
+ * which also caps the connections batches take from the pool; their statements also count towards the
+ * batch request's SQL budget. In a transactional batch every sub-request
+ * runs on the request thread inside one transaction, bypassing the response cache so reads see the
+ * batch's own writes; the first sub-request that fails rolls the transaction back and the rest are
+ * reported as 424 without running. On a sharded deployment a transaction is bound to one shard, so a
+ * transactional batch has to stay within one company's shard.
+ */
+@Component
+public class BatchDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(BatchDispatcher.class);
+    private static final Pattern ALLOWED_PATH = Pattern.compile("/(employees|companies)(/[^?]*)?(\\?.*)?");
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "DELETE");
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final RequestMappingHandlerAdapter handlerAdapter;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final ResponseCacheFilter responseCacheFilter;
+    private final AdmissionControlFilter admissionControlFilter;
+    private final ObjectProvider<SqlBudgetFilter> sqlBudgetFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final EmployeeWriteBehindBuffer writeBehindBuffer;
+    private final ObjectMapper objectMapper;
+    private final BatchProperties properties;
+    private final ExecutorService executor;
+
+    public BatchDispatcher(@Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+                           RequestMappingHandlerAdapter handlerAdapter,
+                           @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+                           ResponseCacheFilter responseCacheFilter, AdmissionControlFilter admissionControlFilter,
+                           ObjectProvider<SqlBudgetFilter> sqlBudgetFilter, TransactionTemplate transactionTemplate,
+                           EmployeeWriteBehindBuffer writeBehindBuffer, ObjectMapper objectMapper,
+                           BatchProperties properties) {
+        this.handlerMapping = handlerMapping;
+        this.handlerAdapter = handlerAdapter;
+        this.exceptionResolver = exceptionResolver;
+        this.responseCacheFilter = responseCacheFilter;
+        this.admissionControlFilter = admissionControlFilter;
+        this.sqlBudgetFilter = sqlBudgetFilter;
+        this.transactionTemplate = transactionTemplate;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()), threadFactory());
+    }
+
+    public BatchResponse execute(BatchRequest batch, HttpServletRequest request, HttpServletResponse response) {
+        validate(batch);
+        List<BatchItemRequest> items = batch.getRequests();
+        List<BatchServletRequest> subRequests = new ArrayList<>();
+        for (BatchItemRequest item : items) {
+            subRequests.add(new BatchServletRequest(request, item.getMethod().toUpperCase(), item.getPath(), bodyOf(item)));
+        }
+        return batch.isTransactional()
+                ? executeInTransaction(items, subRequests, response)
+                : executeIndependently(items, subRequests, response);
+    }
+
+    private BatchResponse executeIndependently(List<BatchItemRequest> items, List<BatchServletRequest> subRequests,
+                                               HttpServletResponse response) {
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        List<BatchItemResponse> responses = new ArrayList<>();
+        int index = 0;
+        while (index < items.size()) {
+            int end = index + 1;
+            while (end < items.size() && isRead(subRequests.get(index)) && isRead(subRequests.get(end))) {
+                end++;
+            }
+            if (end - index == 1) {
+                responses.add(dispatch(items.get(index), subRequests.get(index), response, true));
+            } else {
+                responses.addAll(dispatchInParallel(items.subList(index, end), subRequests.subList(index, end),
+                        response, deadline));
+            }
+            index = end;
+        }
+        return new BatchResponse(responses, false);
+    }
+
+    private List<BatchItemResponse> dispatchInParallel(List<BatchItemRequest> items, List<BatchServletRequest> subRequests,
+                                                       HttpServletResponse response, long deadline) {
+        JdbcContext context = JdbcContext.capture();
+        List<Future<BatchItemResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchItemRequest item = items.get(i);
+            BatchServletRequest subRequest = subRequests.get(i);
+            futures.add(executor.submit(() -> context.run(() -> dispatch(item, subRequest, response, true))));
+        }
+        List<BatchItemResponse> responses = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            responses.add(await(futures.get(i), items.get(i), deadline));
+        }
+        return responses;
+    }
+
+    private BatchItemResponse await(Future<BatchItemResponse> future, BatchItemRequest item, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return new BatchItemResponse(item.getId(), HttpStatus.GATEWAY_TIMEOUT.value(), null);
+        } catch (ExecutionException e) {
+            log.warn("Batch sub-request {} {} failed", item.getMethod(), item.getPath(), e.getCause());
+            return new BatchItemResponse(item.getId(), HttpStatus.INTERNAL_SERVER_ERROR.value(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return new BatchItemResponse(item.getId(), HttpStatus.SERVICE_UNAVAILABLE.value(), null);
+        }
+    }
+
+    private BatchResponse executeInTransaction(List<BatchItemRequest> items, List<BatchServletRequest> subRequests,
+                                               HttpServletResponse response) {
+        return transactionTemplate.execute(status -> {
+            List<BatchItemResponse> responses = new ArrayList<>();
+            boolean failed = false;
+            for (int i = 0; i < items.size(); i++) {
+                if (failed) {
+                    responses.add(new BatchItemResponse(items.get(i).getId(), HttpStatus.FAILED_DEPENDENCY.value(), null));
+                    continue;
+                }
+                BatchItemResponse itemResponse = dispatch(items.get(i), subRequests.get(i), response, false);
+                responses.add(itemResponse);
+                failed = itemResponse.getStatus() >= 400 || status.isRollbackOnly();
+            }
+            if (failed) {
+                status.setRollbackOnly();
+            }
+            return new BatchResponse(responses, failed);
+        });
+    }
+
+    private BatchItemResponse dispatch(BatchItemRequest item, BatchServletRequest subRequest,
+                                       HttpServletResponse response, boolean cacheable) {
+        BatchServletResponse subResponse = new BatchServletResponse(response);
+        RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+        ServletRequestAttributes attributes = new ServletRequestAttributes(subRequest, subResponse);
+        RequestContextHolder.setRequestAttributes(attributes);
+        List<Filter> filters = new ArrayList<>();
+        if (cacheable) {
+            filters.add(responseCacheFilter);
+        }
+        filters.add(admissionControlFilter);
+        sqlBudgetFilter.ifAvailable(filters::add);
+        try {
+            filter(filters, subRequest, subResponse);
+        } catch (Exception e) {
+            log.warn("Batch sub-request {} {} failed", item.getMethod(), item.getPath(), e);
+            return new BatchItemResponse(item.getId(), HttpStatus.INTERNAL_SERVER_ERROR.value(), null);
+        } finally {
+            attributes.requestCompleted();
+            RequestContextHolder.setRequestAttributes(previous);
+        }
+        return new BatchItemResponse(item.getId(), subResponse.getStatus(), bodyOf(subResponse));
+    }
+
+    /**
+     * Runs the request through {@code filters} in order, as the servlet container does, and then the handler.
+     */
+    private void filter(List<Filter> filters, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        if (filters.isEmpty()) {
+            handle(request, response);
+            return;
+        }
+        filters.get(0).doFilter(request, response, (filteredRequest, filteredResponse) -> {
+            try {
+                filter(filters.subList(1, filters.size()),
+                        (HttpServletRequest) filteredRequest, (HttpServletResponse) filteredResponse);
+            } catch (IOException | ServletException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ServletException(e);
+            }
+        });
+    }
+
+    /**
+     * What {@code DispatcherServlet} does for a request to an annotated controller: find the handler, run
+     * its interceptors and resolve exceptions through the controller advice.
+     */
+    private void handle(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        HandlerExecutionChain chain = null;
+        Exception failure = null;
+        try {
+            ServletRequestPathUtils.parseAndCache(request);
+            chain = handlerMapping.getHandler(request);
+            if (chain == null) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+                if (!interceptor.preHandle(request, response, chain.getHandler())) {
+                    return;
+                }
+            }
+            ModelAndView modelAndView = handlerAdapter.handle(request, response, chain.getHandler());
+            for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+                interceptor.postHandle(request, response, chain.getHandler(), modelAndView);
+            }
+        } catch (Exception e) {
+            failure = e;
+            if (exceptionResolver.resolveException(request, response, chain == null ? null : chain.getHandler(), e) == null) {
+                throw e;
+            }
+        } finally {
+            if (chain != null) {
+                for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+                    interceptor.afterCompletion(request, response, chain.getHandler(), failure);
+                }
+            }
+        }
+    }
+
+    private void validate(BatchRequest batch) {
+        List<BatchItemRequest> items = batch.getRequests();
+        if (items == null || items.isEmpty()) {
+            throw new InvalidRequestException("requests are required");
+        }
+        if (items.size() > properties.getMaxRequests()) {
+            throw new InvalidRequestException("at most " + properties.getMaxRequests() + " requests per batch");
+        }
+        for (BatchItemRequest item : items) {
+            if (item.getMethod() == null || !METHODS.contains(item.getMethod().toUpperCase())) {
+                throw new InvalidRequestException("method must be one of " + METHODS);
+            }
+            if (item.getPath() == null || !ALLOWED_PATH.matcher(item.getPath()).matches() || item.getPath().contains("..")) {
+                throw new InvalidRequestException("path must address /employees or /companies: " + item.getPath());
+            }
+            if (batch.isTransactional() && writeBehindBuffer.isEnabled() && "PUT".equalsIgnoreCase(item.getMethod())
+                    && item.getPath().startsWith("/employees/")) {
+                throw new InvalidRequestException("employee updates cannot join a transactional batch while write-behind is enabled");
+            }
+        }
+    }
+
+    private byte[] bodyOf(BatchItemRequest item) {
+        if (item.getBody() == null || item.getBody().isNull()) {
+            return new byte[0];
+        }
+        try {
+            return objectMapper.writeValueAsBytes(item.getBody());
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException("body of " + item.getPath() + " cannot be serialized");
+        }
+    }
+
+    /**
+     * The sub-response body as raw JSON; anything else is embedded as a JSON string.
+     */
+    private String bodyOf(BatchServletResponse subResponse) {
+        byte[] body = subResponse.getBody();
+        if (body.length == 0) {
+            return null;
+        }
+        String text = new String(body, StandardCharsets.UTF_8);
+        String contentType = subResponse.getContentType();
+        if (contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+            return text;
+        }
+        try {
+            return objectMapper.writeValueAsString(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isRead(BatchServletRequest subRequest) {
+        return "GET".equals(subRequest.getMethod());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
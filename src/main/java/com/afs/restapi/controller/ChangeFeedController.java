@@ -0,0 +1,52 @@
+package com.afs.restapi.controller;
+
+import com.afs.restapi.config.ChangeFeedProperties;
+import com.afs.restapi.service.ChangeFeedDispatcher;
+import com.afs.restapi.service.ChangeFeedPosition;
+import com.afs.restapi.service.dto.ChangeEventResponse;
+import com.afs.restapi.service.mapper.ChangeEventMapper;
+import com.afs.restapi.sharding.ShardRouter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/changes")
+public class ChangeFeedController {
+    static final String POSITION_HEADER = "X-Change-Feed-Position";
+
+    private final ChangeFeedDispatcher changeFeedDispatcher;
+    private final ChangeFeedProperties changeFeedProperties;
+    private final ShardRouter shardRouter;
+
+    public ChangeFeedController(ChangeFeedDispatcher changeFeedDispatcher, ChangeFeedProperties changeFeedProperties,
+                                ShardRouter shardRouter) {
+        this.changeFeedDispatcher = changeFeedDispatcher;
+        this.changeFeedProperties = changeFeedProperties;
+        this.shardRouter = shardRouter;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(required = false) String since,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeFeedDispatcher.subscribe(since != null ? since : lastEventId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ChangeEventResponse>> getChanges(@RequestParam(defaultValue = "0") String since) {
+        ChangeFeedPosition position = ChangeFeedPosition.parse(since, shardRouter.getShardCount());
+        long[] lastSeqs = position.toArray();
+        List<ChangeEventResponse> changes = new ArrayList<>();
+        shardRouter.onEveryShard(shard -> changeFeedDispatcher.findSettledAfter(shard, position.seq(shard),
+                        changeFeedProperties.getBatchSize()))
+                .forEach(events -> events.forEach(event -> changes.add(ChangeEventMapper.toResponse(event))));
+        changes.forEach(change -> lastSeqs[shardRouter.shardForId(change.getSeq())] = change.getSeq());
+        return ResponseEntity.ok()
+                .header(POSITION_HEADER, ChangeFeedPosition.of(lastSeqs).toString())
+                .body(changes);
+    }
+}
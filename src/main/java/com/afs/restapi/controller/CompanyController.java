@@ -1,9 +1,11 @@
 package com.afs.restapi.controller;
 
+import com.afs.restapi.exception.InvalidRequestException;
 import com.afs.restapi.service.CompanyService;
 import com.afs.restapi.service.dto.CompanyRequest;
 import com.afs.restapi.service.dto.CompanyResponse;
 import com.afs.restapi.service.dto.EmployeeResponse;
+import com.afs.restapi.service.dto.MultiGetResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,18 +22,26 @@ public class CompanyController {
     }
 
     @GetMapping
-    public List<CompanyResponse> getAllCompanies() {
-        return companyService.findAll();
+    public List<CompanyResponse> getAllCompanies(@RequestParam(required = false) String include) {
+        return includesEmployees(include) ? companyService.findAllWithEmployees() : companyService.findAll();
     }
 
     @GetMapping(params = {"pageNumber", "pageSize"})
-    public List<CompanyResponse> getCompaniesByPage(@RequestParam Integer pageNumber, @RequestParam Integer pageSize) {
-        return companyService.findByPage(pageNumber, pageSize);
+    public List<CompanyResponse> getCompaniesByPage(@RequestParam Integer pageNumber, @RequestParam Integer pageSize,
+                                                    @RequestParam(required = false) String include) {
+        return includesEmployees(include)
+                ? companyService.findByPageWithEmployees(pageNumber, pageSize)
+                : companyService.findByPage(pageNumber, pageSize);
     }
 
     @GetMapping("/{id}")
-    public CompanyResponse getCompanyById(@PathVariable Long id) {
-        return companyService.findById(id);
+    public CompanyResponse getCompanyById(@PathVariable Long id, @RequestParam(required = false) String include) {
+        return includesEmployees(include) ? companyService.findByIdWithEmployees(id) : companyService.findById(id);
+    }
+
+    @GetMapping(params = "ids")
+    public MultiGetResponse<CompanyResponse> getCompaniesByIds(@RequestParam List<Long> ids) {
+        return companyService.findAllByIds(ids);
     }
 
     @PutMapping("/{id}")
@@ -57,4 +67,14 @@ public class CompanyController {
         return companyService.findEmployeesByCompanyId(id);
     }
 
+    private static boolean includesEmployees(String include) {
+        if (include == null || include.isBlank()) {
+            return false;
+        }
+        if (!"employees".equals(include)) {
+            throw new InvalidRequestException("unsupported include: " + include);
+        }
+        return true;
+    }
+
 }
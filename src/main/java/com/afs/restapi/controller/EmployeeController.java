@@ -1,9 +1,13 @@
 package com.afs.restapi.controller;
 
+import com.afs.restapi.exception.InvalidRequestException;
 import com.afs.restapi.service.EmployeeService;
+import com.afs.restapi.service.dto.EmployeeAdjustmentRequest;
+import com.afs.restapi.service.dto.EmployeeAdjustmentResponse;
 import com.afs.restapi.service.dto.EmployeeRequest;
 import com.afs.restapi.service.dto.EmployeeResponse;
 import com.afs.restapi.service.dto.EmployeeUpdateRequest;
+import com.afs.restapi.service.dto.MultiGetResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,6 +33,16 @@ public class EmployeeController {
         return employeeService.findById(id);
     }
 
+    @GetMapping(params = "ids")
+    public MultiGetResponse<EmployeeResponse> getEmployeesByIds(@RequestParam List<Long> ids) {
+        return employeeService.findAllByIds(ids);
+    }
+
+    @GetMapping(params = {"ids", "gender"})
+    public MultiGetResponse<EmployeeResponse> rejectIdsWithGender() {
+        throw new InvalidRequestException("ids cannot be combined with gender");
+    }
+
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void updateEmployee(@PathVariable Long id, @RequestBody EmployeeUpdateRequest employeeUpdateRequest) {
@@ -57,4 +71,9 @@ public class EmployeeController {
         return employeeService.findByPage(pageNumber, pageSize);
     }
 
+    @PostMapping("/adjustments")
+    public EmployeeAdjustmentResponse adjustEmployees(@RequestBody EmployeeAdjustmentRequest employeeAdjustmentRequest) {
+        return employeeService.adjust(employeeAdjustmentRequest);
+    }
+
 }
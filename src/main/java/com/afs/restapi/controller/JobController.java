@@ -0,0 +1,46 @@
+package com.afs.restapi.controller;
+
+import com.afs.restapi.service.JobService;
+import com.afs.restapi.service.dto.JobRequest;
+import com.afs.restapi.service.dto.JobResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/jobs")
+public class JobController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final JobService jobService;
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public JobResponse submitJob(@RequestBody JobRequest jobRequest) {
+        return jobService.submit(jobRequest);
+    }
+
+    @GetMapping("/{id}")
+    public JobResponse getJobById(@PathVariable Long id) {
+        return jobService.findById(id);
+    }
+
+    @DeleteMapping("/{id}")
+    public JobResponse cancelJob(@PathVariable Long id) {
+        return jobService.cancel(id);
+    }
+
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Resource> getJobResult(@PathVariable Long id) {
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .body(new FileSystemResource(jobService.findExport(id)));
+    }
+}
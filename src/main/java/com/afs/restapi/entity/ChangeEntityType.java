@@ -0,0 +1,6 @@
+package com.afs.restapi.entity;
+
+public enum ChangeEntityType {
+    EMPLOYEE,
+    COMPANY
+}
@@ -0,0 +1,67 @@
+package com.afs.restapi.entity;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+public class ChangeEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+    @Enumerated(EnumType.STRING)
+    private ChangeEntityType entityType;
+    private Long entityId;
+    @Enumerated(EnumType.STRING)
+    private ChangeType changeType;
+    private Instant createdAt;
+
+    public ChangeEvent() {
+    }
+
+    public ChangeEvent(ChangeEntityType entityType, Long entityId, ChangeType changeType, Instant createdAt) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.changeType = changeType;
+        this.createdAt = createdAt;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public ChangeEntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(ChangeEntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(ChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
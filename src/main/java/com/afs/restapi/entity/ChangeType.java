@@ -0,0 +1,7 @@
+package com.afs.restapi.entity;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
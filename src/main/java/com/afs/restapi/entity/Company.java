@@ -1,9 +1,12 @@
 package com.afs.restapi.entity;
 
+import com.afs.restapi.repository.ExistenceFilterEntityListener;
+
 import javax.persistence.*;
 import java.util.List;
 
 @Entity
+@EntityListeners(ExistenceFilterEntityListener.class)
 public class Company {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,11 +1,15 @@
 package com.afs.restapi.entity;
 
+import com.afs.restapi.repository.ExistenceFilterEntityListener;
+
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
 @Entity
+@EntityListeners(ExistenceFilterEntityListener.class)
 public class Employee {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
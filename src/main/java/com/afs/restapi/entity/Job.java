@@ -0,0 +1,176 @@
+package com.afs.restapi.entity;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * A long-running bulk operation. {@code cursorShard} and {@code cursorId} are the checkpoint: the shard being
+ * worked on and the last employee id (or, for imports, the number of items) it has committed, so a job
+ * interrupted by a restart resumes after its last committed chunk. A running job is leased to the instance
+ * named in {@code owner}, which renews the lease by touching {@code updatedAt}; a job whose lease expired is
+ * queued again for any instance to resume.
+ */
+@Entity
+public class Job {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    private JobType type;
+    @Enumerated(EnumType.STRING)
+    private JobStatus status;
+    @Lob
+    private String parameters;
+    private Long total;
+    private long processed;
+    private int cursorShard;
+    private long cursorId;
+    private long resultBytes;
+    private boolean cancelRequested;
+    @Column(length = 1000)
+    private String error;
+    @Column(length = 64)
+    private String owner;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+
+    public Job() {
+    }
+
+    public Job(JobType type, String parameters, Instant createdAt) {
+        this.type = type;
+        this.status = JobStatus.QUEUED;
+        this.parameters = parameters;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public void setType(JobType type) {
+        this.type = type;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public String getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(String parameters) {
+        this.parameters = parameters;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public int getCursorShard() {
+        return cursorShard;
+    }
+
+    public void setCursorShard(int cursorShard) {
+        this.cursorShard = cursorShard;
+    }
+
+    public long getCursorId() {
+        return cursorId;
+    }
+
+    public void setCursorId(long cursorId) {
+        this.cursorId = cursorId;
+    }
+
+    public long getResultBytes() {
+        return resultBytes;
+    }
+
+    public void setResultBytes(long resultBytes) {
+        this.resultBytes = resultBytes;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
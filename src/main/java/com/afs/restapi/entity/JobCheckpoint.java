@@ -0,0 +1,49 @@
+package com.afs.restapi.entity;
+
+import javax.persistence.*;
+
+/**
+ * The checkpoint of a job's last chunk on a shard other than shard 0, which holds the {@link Job} table.
+ * It is written in the chunk's own transaction on that shard, so a chunk and its checkpoint commit
+ * together even though the job row lives in another database.
+ */
+@Entity
+public class JobCheckpoint {
+    @Id
+    private Long jobId;
+    private long cursorId;
+    private long processed;
+
+    public JobCheckpoint() {
+    }
+
+    public JobCheckpoint(Long jobId, long cursorId, long processed) {
+        this.jobId = jobId;
+        this.cursorId = cursorId;
+        this.processed = processed;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public long getCursorId() {
+        return cursorId;
+    }
+
+    public void setCursorId(long cursorId) {
+        this.cursorId = cursorId;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+}
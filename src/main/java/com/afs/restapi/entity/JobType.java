@@ -0,0 +1,8 @@
+package com.afs.restapi.entity;
+
+public enum JobType {
+    EMPLOYEE_IMPORT,
+    EMPLOYEE_EXPORT,
+    EMPLOYEE_DELETE,
+    EMPLOYEE_ADJUSTMENT
+}
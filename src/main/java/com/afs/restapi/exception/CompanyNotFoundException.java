@@ -3,9 +3,12 @@ package com.afs.restapi.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Thrown for every lookup of an unknown id, so like {@link EmployeeNotFoundException} it skips stack trace capture.
+ */
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class CompanyNotFoundException extends RuntimeException {
     public CompanyNotFoundException() {
-        super("company id not found");
+        super("company id not found", null, false, false);
     }
 }
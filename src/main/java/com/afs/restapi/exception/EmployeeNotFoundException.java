@@ -3,9 +3,12 @@ package com.afs.restapi.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Thrown for every lookup of an unknown id, including scanner traffic, so it skips stack trace capture.
+ */
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class EmployeeNotFoundException extends RuntimeException {
     public EmployeeNotFoundException() {
-        super("employee id not found");
+        super("employee id not found", null, false, false);
     }
 }
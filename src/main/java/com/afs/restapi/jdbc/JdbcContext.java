@@ -0,0 +1,27 @@
+package com.afs.restapi.jdbc;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The thread-bound JDBC state of a caller, the open recordings and the query deadline, captured so a
+ * worker thread doing part of the caller's work counts its statements into the caller's recordings and
+ * stops at the caller's deadline.
+ */
+public class JdbcContext {
+    private final List<SqlStatistics> recordings;
+    private final Long deadlineNanos;
+
+    private JdbcContext(List<SqlStatistics> recordings, Long deadlineNanos) {
+        this.recordings = recordings;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static JdbcContext capture() {
+        return new JdbcContext(SqlStatisticsRecorder.current(), QueryDeadline.current());
+    }
+
+    public <T> T run(Supplier<T> action) {
+        return QueryDeadline.at(deadlineNanos, () -> SqlStatisticsRecorder.recordInto(recordings, action));
+    }
+}
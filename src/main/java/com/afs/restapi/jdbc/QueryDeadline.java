@@ -0,0 +1,64 @@
+package com.afs.restapi.jdbc;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound deadline for JDBC statements. Every statement created on a thread with an open deadline
+ * gets the remaining time as its query timeout, so the database cancels work the caller no longer waits for.
+ */
+public class QueryDeadline {
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private QueryDeadline(){}
+
+    /**
+     * Runs the action with statements bounded by {@code timeout}; an enclosing, earlier deadline wins.
+     */
+    public static <T> T within(Duration timeout, Supplier<T> action) {
+        return at(System.nanoTime() + timeout.toNanos(), action);
+    }
+
+    /**
+     * Runs the action under an absolute deadline taken from {@link #current()}, typically on a worker
+     * thread doing part of the caller's work; {@code null} runs it unbounded.
+     */
+    public static <T> T at(Long deadlineNanos, Supplier<T> action) {
+        Long previous = DEADLINE.get();
+        Long effective = previous == null || (deadlineNanos != null && deadlineNanos - previous < 0) ? deadlineNanos : previous;
+        set(effective);
+        try {
+            return action.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static Long current() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * Seconds left until the deadline, rounded up, as JDBC query timeouts take whole seconds; {@code 0}
+     * when there is no deadline and a negative value once it has passed.
+     */
+    static int remainingSeconds() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return 0;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return -1;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (remaining + 999_999_999L) / 1_000_000_000L);
+    }
+
+    private static void set(Long deadline) {
+        if (deadline == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(deadline);
+        }
+    }
+}
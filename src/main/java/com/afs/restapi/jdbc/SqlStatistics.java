@@ -0,0 +1,65 @@
+package com.afs.restapi.jdbc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Statements, rows and JDBC time of one unit of work, with the executed statements grouped by their
+ * literal-free pattern so a statement repeated once per row stands out. Worker threads of the unit of
+ * work record into it concurrently, so access is synchronized.
+ */
+public class SqlStatistics {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+    private final Map<String, Integer> statementPatterns = new LinkedHashMap<>();
+
+    public synchronized int getStatements() {
+        return statements;
+    }
+
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    public synchronized long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    /**
+     * A copy of the execution count per statement pattern, in order of first execution.
+     */
+    public synchronized Map<String, Integer> getStatementPatterns() {
+        return new LinkedHashMap<>(statementPatterns);
+    }
+
+    synchronized void recordStatement(String sql, long elapsedNanos) {
+        statements++;
+        jdbcNanos += elapsedNanos;
+        statementPatterns.merge(pattern(sql), 1, Integer::sum);
+    }
+
+    synchronized void recordTime(long elapsedNanos) {
+        jdbcNanos += elapsedNanos;
+    }
+
+    synchronized void recordRows(long count) {
+        rows += count;
+    }
+
+    static String pattern(String sql) {
+        if (sql == null) {
+            return "<unknown>";
+        }
+        String pattern = STRING_LITERAL.matcher(sql).replaceAll("?");
+        pattern = NUMBER_LITERAL.matcher(pattern).replaceAll("?");
+        pattern = IN_LIST.matcher(pattern).replaceAll("(?, ...)");
+        return WHITESPACE.matcher(pattern).replaceAll(" ").trim();
+    }
+}
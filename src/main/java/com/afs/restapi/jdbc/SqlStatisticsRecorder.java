@@ -0,0 +1,120 @@
+package com.afs.restapi.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound recording of JDBC activity. Statements run on the thread that started a recording are
+ * counted into every recording open on it; work the request hands off to other threads is counted when
+ * the worker runs it through a {@link JdbcContext} captured on the request thread.
+ */
+public class SqlStatisticsRecorder {
+    private static final ThreadLocal<Deque<SqlStatistics>> RECORDINGS = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final ThreadLocal<Deque<RequestCapture>> CAPTURES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private SqlStatisticsRecorder(){}
+
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        RECORDINGS.get().push(statistics);
+        return statistics;
+    }
+
+    public static void stop(SqlStatistics statistics) {
+        RECORDINGS.get().remove(statistics);
+    }
+
+    /**
+     * The recordings open on the current thread, innermost first.
+     */
+    static List<SqlStatistics> current() {
+        return new ArrayList<>(RECORDINGS.get());
+    }
+
+    /**
+     * Runs the action with {@code recordings} open on the current thread in addition to its own.
+     */
+    static <T> T recordInto(List<SqlStatistics> recordings, Supplier<T> action) {
+        Deque<SqlStatistics> open = RECORDINGS.get();
+        for (int i = recordings.size() - 1; i >= 0; i--) {
+            open.push(recordings.get(i));
+        }
+        try {
+            return action.get();
+        } finally {
+            recordings.forEach(open::remove);
+        }
+    }
+
+    /**
+     * Collects the statistics of every request completed on the current thread until the capture is
+     * closed; used by tests that assert the statement count of each endpoint call.
+     */
+    public static RequestCapture captureRequests() {
+        RequestCapture capture = new RequestCapture();
+        CAPTURES.get().push(capture);
+        return capture;
+    }
+
+    public static void requestCompleted(String endpoint, SqlStatistics statistics) {
+        for (RequestCapture capture : CAPTURES.get()) {
+            capture.requests.add(new RequestStatistics(endpoint, statistics));
+        }
+    }
+
+    static boolean isRecording() {
+        return !RECORDINGS.get().isEmpty();
+    }
+
+    static void statementExecuted(String sql, long elapsedNanos) {
+        for (SqlStatistics statistics : RECORDINGS.get()) {
+            statistics.recordStatement(sql, elapsedNanos);
+        }
+    }
+
+    static void timeSpent(long elapsedNanos) {
+        for (SqlStatistics statistics : RECORDINGS.get()) {
+            statistics.recordTime(elapsedNanos);
+        }
+    }
+
+    static void rowsProcessed(long count) {
+        for (SqlStatistics statistics : RECORDINGS.get()) {
+            statistics.recordRows(count);
+        }
+    }
+
+    public static class RequestCapture implements AutoCloseable {
+        private final List<RequestStatistics> requests = new ArrayList<>();
+
+        public List<RequestStatistics> getRequests() {
+            return requests;
+        }
+
+        @Override
+        public void close() {
+            CAPTURES.get().remove(this);
+        }
+    }
+
+    public static class RequestStatistics {
+        private final String endpoint;
+        private final SqlStatistics statistics;
+
+        public RequestStatistics(String endpoint, SqlStatistics statistics) {
+            this.endpoint = endpoint;
+            this.statistics = statistics;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public SqlStatistics getStatistics() {
+            return statistics;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.afs.restapi.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements and result sets report to {@link SqlStatisticsRecorder} and
+ * whose statements are bounded by the thread's {@link QueryDeadline}. Threads without an open recording
+ * pay one thread-local lookup per JDBC call and nothing else.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementCountingDataSource.invoke(target, method, args);
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                applyDeadline((Statement) result);
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return proxy(method.getReturnType(), new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    private static void applyDeadline(Statement statement) throws SQLException {
+        int remainingSeconds = QueryDeadline.remainingSeconds();
+        if (remainingSeconds < 0) {
+            statement.close();
+            throw new SQLTimeoutException("Query deadline passed before the statement was executed");
+        }
+        if (remainingSeconds > 0) {
+            statement.setQueryTimeout(remainingSeconds);
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!SqlStatisticsRecorder.isRecording()) {
+                return StatementCountingDataSource.invoke(target, method, args);
+            }
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                Object result = StatementCountingDataSource.invoke(target, method, args);
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                SqlStatisticsRecorder.statementExecuted(sql, System.nanoTime() - start);
+                if (result instanceof Integer && !name.equals("execute")) {
+                    SqlStatisticsRecorder.rowsProcessed(Math.max(0, (Integer) result));
+                } else if (result instanceof Long) {
+                    SqlStatisticsRecorder.rowsProcessed(Math.max(0, (Long) result));
+                } else if (result instanceof int[]) {
+                    for (int count : (int[]) result) {
+                        SqlStatisticsRecorder.rowsProcessed(Math.max(0, count));
+                    }
+                }
+                return result instanceof ResultSet ? proxy(ResultSet.class, new ResultSetHandler((ResultSet) result)) : result;
+            }
+            Object result = StatementCountingDataSource.invoke(target, method, args);
+            if (name.equals("getResultSet") && result != null) {
+                return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result));
+            }
+            return result;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+
+        private ResultSetHandler(ResultSet target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().equals("next")) {
+                return StatementCountingDataSource.invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            Object hasRow = StatementCountingDataSource.invoke(target, method, args);
+            SqlStatisticsRecorder.timeSpent(System.nanoTime() - start);
+            if (Boolean.TRUE.equals(hasRow)) {
+                SqlStatisticsRecorder.rowsProcessed(1);
+            }
+            return hasRow;
+        }
+    }
+}
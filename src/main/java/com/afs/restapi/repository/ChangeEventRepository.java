@@ -0,0 +1,29 @@
+package com.afs.restapi.repository;
+
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+    List<ChangeEvent> findAllBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Query("select max(c.seq) from ChangeEvent c")
+    Optional<Long> findMaxSeq();
+
+    @Query("select c.entityId from ChangeEvent c where c.entityType = :entityType and c.entityId is not null order by c.seq desc")
+    List<Long> findRecentEntityIds(@Param("entityType") ChangeEntityType entityType, Pageable pageable);
+
+    @Modifying
+    @Query("delete from ChangeEvent c where c.createdAt < :cutoff")
+    int deleteAllCreatedBefore(@Param("cutoff") Instant cutoff);
+}
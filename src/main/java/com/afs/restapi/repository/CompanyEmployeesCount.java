@@ -0,0 +1,7 @@
+package com.afs.restapi.repository;
+
+public interface CompanyEmployeesCount {
+    Long getCompanyId();
+
+    Long getEmployeesCount();
+}
@@ -1,9 +1,20 @@
 package com.afs.restapi.repository;
 
 import com.afs.restapi.entity.Company;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CompanyRepository extends JpaRepository<Company, Long> {
+    @Query("select distinct c from Company c left join fetch c.employees where c.id = :id")
+    Optional<Company> findWithEmployeesById(@Param("id") Long id);
+
+    @Query("select c.id from Company c where c.id > :afterId order by c.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,17 @@
+package com.afs.restapi.repository;
+
+import com.afs.restapi.entity.Employee;
+
+import java.util.List;
+
+public interface EmployeeBulkOperations {
+    List<Long> findMatchingIdsAfter(Long companyId, String gender, long afterId, int limit);
+
+    int adjust(Long companyId, String gender, Integer salaryRaisePercent, Integer ageIncrement, long fromId, long toId);
+
+    long countMatching(Long companyId, String gender);
+
+    int delete(Long companyId, String gender, long fromId, long toId);
+
+    List<Employee> findChunkAfter(Long companyId, String gender, long afterId, int limit);
+}
@@ -0,0 +1,96 @@
+package com.afs.restapi.repository;
+
+import com.afs.restapi.entity.Employee;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.List;
+
+/**
+ * Set-based statements over employees matching an optional company and gender filter. Only the
+ * filters that are present end up in the WHERE clause so the database can use its indexes.
+ */
+public class EmployeeBulkOperationsImpl implements EmployeeBulkOperations {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findMatchingIdsAfter(Long companyId, String gender, long afterId, int limit) {
+        String jpql = "select e.id from Employee e where e.id > :afterId" + filter(companyId, gender) + " order by e.id";
+        return bindFilter(entityManager.createQuery(jpql, Long.class), companyId, gender)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public int adjust(Long companyId, String gender, Integer salaryRaisePercent, Integer ageIncrement, long fromId, long toId) {
+        StringBuilder assignments = new StringBuilder();
+        if (salaryRaisePercent != null) {
+            assignments.append("e.salary = e.salary + e.salary * :salaryRaisePercent / 100");
+        }
+        if (ageIncrement != null) {
+            assignments.append(assignments.length() == 0 ? "" : ", ").append("e.age = e.age + :ageIncrement");
+        }
+        String jpql = "update Employee e set " + assignments
+                + " where e.id between :fromId and :toId" + filter(companyId, gender);
+        Query update = bindFilter(entityManager.createQuery(jpql), companyId, gender)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId);
+        if (salaryRaisePercent != null) {
+            update.setParameter("salaryRaisePercent", salaryRaisePercent);
+        }
+        if (ageIncrement != null) {
+            update.setParameter("ageIncrement", ageIncrement);
+        }
+        int affected = update.executeUpdate();
+        entityManager.clear();
+        return affected;
+    }
+
+    @Override
+    public long countMatching(Long companyId, String gender) {
+        String jpql = "select count(e) from Employee e where 1 = 1" + filter(companyId, gender);
+        return bindFilter(entityManager.createQuery(jpql, Long.class), companyId, gender).getSingleResult();
+    }
+
+    /**
+     * Deletes with one statement, bypassing the entity listeners, so callers report the deleted rows to the
+     * existence filters themselves.
+     */
+    @Override
+    public int delete(Long companyId, String gender, long fromId, long toId) {
+        String jpql = "delete from Employee e where e.id between :fromId and :toId" + filter(companyId, gender);
+        int affected = bindFilter(entityManager.createQuery(jpql), companyId, gender)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+        entityManager.clear();
+        return affected;
+    }
+
+    @Override
+    public List<Employee> findChunkAfter(Long companyId, String gender, long afterId, int limit) {
+        String jpql = "select e from Employee e where e.id > :afterId" + filter(companyId, gender) + " order by e.id";
+        return bindFilter(entityManager.createQuery(jpql, Employee.class), companyId, gender)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static String filter(Long companyId, String gender) {
+        return (companyId == null ? "" : " and e.companyId = :companyId")
+                + (gender == null ? "" : " and e.gender = :gender");
+    }
+
+    private static <Q extends Query> Q bindFilter(Q query, Long companyId, String gender) {
+        if (companyId != null) {
+            query.setParameter("companyId", companyId);
+        }
+        if (gender != null) {
+            query.setParameter("gender", gender);
+        }
+        return query;
+    }
+}
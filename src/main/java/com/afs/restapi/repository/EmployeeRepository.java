@@ -1,13 +1,25 @@
 package com.afs.restapi.repository;
 
 import com.afs.restapi.entity.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeBulkOperations {
     List<Employee> findAllByGender(String gender);
     List<Employee> findAllByCompanyId(Long id);
+    List<Employee> findAllByCompanyIdIn(Collection<Long> companyIds);
+
+    @Query("select e.companyId as companyId, count(e) as employeesCount from Employee e " +
+            "where e.companyId in :companyIds group by e.companyId")
+    List<CompanyEmployeesCount> countAllByCompanyIdIn(@Param("companyIds") Collection<Long> companyIds);
+
+    @Query("select e.id from Employee e where e.id > :afterId order by e.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
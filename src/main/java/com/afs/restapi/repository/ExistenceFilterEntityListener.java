@@ -0,0 +1,35 @@
+package com.afs.restapi.repository;
+
+import com.afs.restapi.entity.Company;
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.service.IdExistenceFilters;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+
+/**
+ * Adds every id inserted through JPA to the id existence filters as soon as it is assigned, so this node
+ * never answers 404 for a row it has just created. Deletes are counted from the change log instead, where
+ * they are seen once on every node. The filters are looked up lazily because they depend on the
+ * repositories, which in turn need the entity manager factory that creates this listener.
+ */
+public class ExistenceFilterEntityListener {
+    private final ObjectProvider<IdExistenceFilters> idExistenceFilters;
+
+    public ExistenceFilterEntityListener(ObjectProvider<IdExistenceFilters> idExistenceFilters) {
+        this.idExistenceFilters = idExistenceFilters;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        IdExistenceFilters filters = idExistenceFilters.getIfAvailable();
+        if (filters == null) {
+            return;
+        }
+        if (entity instanceof Employee) {
+            filters.employees().add(((Employee) entity).getId());
+        } else if (entity instanceof Company) {
+            filters.companies().add(((Company) entity).getId());
+        }
+    }
+}
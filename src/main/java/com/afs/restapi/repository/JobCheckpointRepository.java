@@ -0,0 +1,29 @@
+package com.afs.restapi.repository;
+
+import com.afs.restapi.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, Long> {
+    /**
+     * Locks the checkpoint for the rest of the transaction, so two workers of one job cannot both commit
+     * the chunk after it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from JobCheckpoint c where c.jobId = :jobId")
+    Optional<JobCheckpoint> findForUpdate(@Param("jobId") Long jobId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from JobCheckpoint c where c.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") Long jobId);
+}
@@ -0,0 +1,93 @@
+package com.afs.restapi.repository;
+
+import com.afs.restapi.entity.Job;
+import com.afs.restapi.entity.JobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, Long> {
+    @Query("select j.id from Job j where j.status = :status order by j.id")
+    List<Long> findIdsByStatus(@Param("status") JobStatus status, Pageable pageable);
+
+    /**
+     * Whether the job is still leased to {@code owner} and not cancelled, checked before each chunk.
+     */
+    @Query("select case when count(j) > 0 then true else false end from Job j " +
+            "where j.id = :id and j.owner = :owner and j.cancelRequested = false")
+    boolean shouldContinue(@Param("id") Long id, @Param("owner") String owner);
+
+    /**
+     * Leases a queued job to {@code owner}; returns 0 when another caller claimed it first.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = com.afs.restapi.entity.JobStatus.RUNNING, j.owner = :owner, " +
+            "j.startedAt = coalesce(j.startedAt, :now), j.updatedAt = :now " +
+            "where j.id = :id and j.status = com.afs.restapi.entity.JobStatus.QUEUED")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.updatedAt = :now " +
+            "where j.owner = :owner and j.status = com.afs.restapi.entity.JobStatus.RUNNING")
+    int renewLeases(@Param("owner") String owner, @Param("now") Instant now);
+
+    /**
+     * Queues running jobs again whose lease was last renewed before {@code expiredBefore}.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = com.afs.restapi.entity.JobStatus.QUEUED, j.owner = null " +
+            "where j.status = com.afs.restapi.entity.JobStatus.RUNNING " +
+            "and (j.updatedAt is null or j.updatedAt < :expiredBefore)")
+    int requeueExpired(@Param("expiredBefore") Instant expiredBefore);
+
+    /**
+     * Queues running jobs of {@code owner} again, for an instance restarting under the same name.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = com.afs.restapi.entity.JobStatus.QUEUED, j.owner = null " +
+            "where j.status = com.afs.restapi.entity.JobStatus.RUNNING and j.owner = :owner")
+    int requeueOwnedBy(@Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.processed = :processed, j.cursorShard = :cursorShard, j.cursorId = :cursorId, " +
+            "j.resultBytes = :resultBytes, j.updatedAt = :now where j.id = :id and j.owner = :owner")
+    int checkpoint(@Param("id") Long id, @Param("owner") String owner, @Param("processed") long processed,
+                   @Param("cursorShard") int cursorShard, @Param("cursorId") long cursorId,
+                   @Param("resultBytes") long resultBytes, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.total = :total where j.id = :id")
+    int updateTotal(@Param("id") Long id, @Param("total") long total);
+
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.cancelRequested = true where j.id = :id and j.status in :statuses")
+    int requestCancel(@Param("id") Long id, @Param("statuses") List<JobStatus> statuses);
+
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = :status, j.error = :error, j.owner = null, j.updatedAt = :now, " +
+            "j.finishedAt = :now where j.id = :id and j.owner = :owner")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") JobStatus status,
+               @Param("error") String error, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = com.afs.restapi.entity.JobStatus.CANCELLED, j.finishedAt = :now " +
+            "where j.id = :id and j.status = com.afs.restapi.entity.JobStatus.QUEUED")
+    int cancelQueued(@Param("id") Long id, @Param("now") Instant now);
+}
@@ -0,0 +1,13 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.entity.ChangeEvent;
+
+import java.util.List;
+
+/**
+ * Receives every batch of committed change events that {@link ChangeFeedDispatcher} reads from the
+ * outbox, including those written by other nodes, in sequence order per shard.
+ */
+public interface ChangeEventListener {
+    void onChanges(List<ChangeEvent> events);
+}
@@ -0,0 +1,349 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.config.ChangeFeedProperties;
+import com.afs.restapi.entity.ChangeEvent;
+import com.afs.restapi.service.dto.ChangeEventResponse;
+import com.afs.restapi.service.mapper.ChangeEventMapper;
+import com.afs.restapi.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes committed outbox events to SSE subscribers. A single scheduled thread polls the outbox in
+ * batches and fans each batch out to every subscriber; connections are held by the servlet async
+ * machinery, so idle subscribers cost no request thread.
+ * <p>
+ * The poller only queues events per subscriber; a small pool of sender threads writes them out, one
+ * subscriber at a time each. A client that stops reading therefore holds up at most one sender thread
+ * and never the poller, and once {@code restapi.change-feed.subscriber-queue-size} batches are waiting
+ * for it, it is dropped and has to resume with its last event id.
+ * <p>
+ * Every node runs this poller against the shared outbox, so it is also the cluster's invalidation bus:
+ * each batch is handed to the {@link ChangeEventListener}s first, which evict what other nodes changed.
+ * {@code restapi.change-feed.invalidation.lag} records how long after its commit an event was applied.
+ */
+@Component
+public class ChangeFeedDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedDispatcher.class);
+
+    private final ChangeFeedService changeFeedService;
+    private final ChangeFeedProperties properties;
+    private final ShardRouter shardRouter;
+    private final List<ChangeEventListener> listeners;
+    private final Timer invalidationLag;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private volatile AtomicLongArray cursors;
+    private final long[] pendingGapSeqs;
+    private final Instant[] pendingGapSinces;
+
+    public ChangeFeedDispatcher(ChangeFeedService changeFeedService, ChangeFeedProperties properties,
+                                ShardRouter shardRouter, List<ChangeEventListener> listeners,
+                                MeterRegistry meterRegistry) {
+        this.changeFeedService = changeFeedService;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.listeners = listeners;
+        this.invalidationLag = Timer.builder("restapi.change-feed.invalidation.lag")
+                .register(meterRegistry);
+        this.senders = Executors.newFixedThreadPool(Math.max(1, properties.getSenderThreads()), senderThreadFactory());
+        this.pendingGapSeqs = new long[shardRouter.getShardCount()];
+        this.pendingGapSinces = new Instant[shardRouter.getShardCount()];
+        Arrays.fill(pendingGapSeqs, -1);
+    }
+
+    /**
+     * Subscribes from {@code since}, or without a position from the poller's cursor, which never lies past
+     * an unsettled gap.
+     */
+    public SseEmitter subscribe(String since) {
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+        long[] lastSeqs = since != null
+                ? ChangeFeedPosition.parse(since, shardRouter.getShardCount()).toArray()
+                : cursorSnapshot();
+        for (int shard = 0; shard < lastSeqs.length; shard++) {
+            lastSeqs[shard] = Math.max(lastSeqs[shard], shardRouter.firstIdOf(shard) - 1);
+        }
+        Subscriber subscriber = new Subscriber(emitter, lastSeqs);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * The events of {@code shard} after {@code since} that can no longer be preceded by a late commit:
+     * those up to the poller's cursor and, past it, the run without holes. Polling readers that resume from
+     * the last sequence number they saw would otherwise skip a lower one that commits after a higher one.
+     */
+    public List<ChangeEvent> findSettledAfter(int shard, long since, int limit) {
+        long cursor = cursors().get(shard);
+        List<ChangeEvent> events = shardRouter.onShard(shard, () -> changeFeedService.findAfter(since, limit));
+        long expected = cursor + 1;
+        for (int i = 0; i < events.size(); i++) {
+            long seq = events.get(i).getSeq();
+            if (seq <= cursor) {
+                continue;
+            }
+            if (seq != expected) {
+                return events.subList(0, i);
+            }
+            expected = seq + 1;
+        }
+        return events;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Polls each shard's outbox in turn; every shard has its own sequence, so cursors, gaps and
+     * subscriber positions are all tracked per shard.
+     */
+    @Scheduled(fixedDelayString = "${restapi.change-feed.poll-interval:PT0.2S}")
+    public void dispatch() {
+        AtomicLongArray cursors = cursors();
+        for (int shard = 0; shard < cursors.length(); shard++) {
+            long cursor = cursors.get(shard);
+            List<ChangeEvent> batch = settled(shard, cursor, shardRouter.onShard(shard,
+                    () -> changeFeedService.findAfter(cursor, properties.getBatchSize())));
+            notifyListeners(batch);
+            for (Subscriber subscriber : subscribers) {
+                deliver(subscriber, shard, cursor, batch);
+            }
+            if (!batch.isEmpty()) {
+                cursors.set(shard, batch.get(batch.size() - 1).getSeq());
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${restapi.change-feed.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1M")
+    public void purgeExpiredEvents() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        int purged = shardRouter.onEveryShard(shard -> changeFeedService.deleteCreatedBefore(cutoff)).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        if (purged > 0) {
+            log.info("Purged {} change events older than {}", purged, properties.getRetention());
+        }
+    }
+
+    private void notifyListeners(List<ChangeEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (ChangeEventListener listener : listeners) {
+            try {
+                listener.onChanges(batch);
+            } catch (RuntimeException e) {
+                log.warn("Change event listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+        Instant committedAt = batch.get(batch.size() - 1).getCreatedAt();
+        if (committedAt != null) {
+            invalidationLag.record(Duration.between(committedAt, Instant.now()).abs());
+        }
+    }
+
+    private AtomicLongArray cursors() {
+        AtomicLongArray current = cursors;
+        if (current == null) {
+            synchronized (this) {
+                if (cursors == null) {
+                    cursors = new AtomicLongArray(findLatestSeqs());
+                }
+                current = cursors;
+            }
+        }
+        return current;
+    }
+
+    private long[] cursorSnapshot() {
+        AtomicLongArray current = cursors();
+        long[] snapshot = new long[current.length()];
+        for (int shard = 0; shard < snapshot.length; shard++) {
+            snapshot[shard] = current.get(shard);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reads the shards one after another on the calling thread: the first caller may itself be a fan-out
+     * task, like {@link #findSettledAfter} for {@code GET /changes}, and waiting for more fan-out tasks
+     * from inside one can exhaust the fan-out pool and deadlock it.
+     */
+    private long[] findLatestSeqs() {
+        long[] latest = new long[shardRouter.getShardCount()];
+        for (int shard = 0; shard < latest.length; shard++) {
+            long firstSeq = shardRouter.firstIdOf(shard);
+            latest[shard] = shardRouter.onShard(shard, () -> Math.max(changeFeedService.findLatestSeq(), firstSeq - 1));
+        }
+        return latest;
+    }
+
+    /**
+     * Identity values are allocated before commit, so a lower sequence number can become visible after
+     * a higher one. Dispatch stops at a hole until it is filled or, for rolled back transactions that
+     * never fill it, until the gap timeout has passed.
+     */
+    private List<ChangeEvent> settled(int shard, long cursor, List<ChangeEvent> events) {
+        long expected = cursor + 1;
+        for (int i = 0; i < events.size(); i++) {
+            long seq = events.get(i).getSeq();
+            if (seq != expected) {
+                if (pendingGapSeqs[shard] != expected) {
+                    pendingGapSeqs[shard] = expected;
+                    pendingGapSinces[shard] = Instant.now();
+                }
+                if (Duration.between(pendingGapSinces[shard], Instant.now()).compareTo(properties.getGapTimeout()) < 0) {
+                    return events.subList(0, i);
+                }
+                pendingGapSeqs[shard] = -1;
+            }
+            expected = seq + 1;
+        }
+        return events;
+    }
+
+    /**
+     * Queues the subscriber's part of the batch, after first queueing the backlog it has not read yet from
+     * where it subscribed up to the cursor.
+     */
+    private void deliver(Subscriber subscriber, int shard, long cursor, List<ChangeEvent> batch) {
+        if (subscriber.lastSeqs[shard] < cursor) {
+            long from = subscriber.lastSeqs[shard];
+            List<ChangeEvent> backlog = shardRouter.onShard(shard,
+                    () -> changeFeedService.findAfter(from, properties.getBatchSize())).stream()
+                    .filter(event -> event.getSeq() <= cursor)
+                    .collect(Collectors.toList());
+            send(subscriber, shard, backlog);
+            if (subscriber.lastSeqs[shard] < cursor && !backlog.isEmpty()) {
+                return;
+            }
+            subscriber.lastSeqs[shard] = Math.max(subscriber.lastSeqs[shard], cursor);
+        }
+        send(subscriber, shard, batch.stream()
+                .filter(event -> event.getSeq() > subscriber.lastSeqs[shard])
+                .collect(Collectors.toList()));
+    }
+
+    private void send(Subscriber subscriber, int shard, List<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        subscriber.lastSeqs[shard] = events.get(events.size() - 1).getSeq();
+        List<ChangeEventResponse> responses = events.stream()
+                .map(ChangeEventMapper::toResponse)
+                .collect(Collectors.toList());
+        enqueue(subscriber, SseEmitter.event()
+                .id(ChangeFeedPosition.of(subscriber.lastSeqs).toString())
+                .name("changes")
+                .data(responses, MediaType.APPLICATION_JSON));
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.queued.incrementAndGet() > properties.getSubscriberQueueSize()) {
+            drop(subscriber, new IllegalStateException("Change feed subscriber fell too far behind"));
+            return;
+        }
+        subscriber.outbox.add(event);
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.outbox.poll()) != null) {
+                subscriber.queued.decrementAndGet();
+                subscriber.emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException exception) {
+            drop(subscriber, exception);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (!subscriber.outbox.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception exception) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Dropping change feed subscriber", exception);
+            subscriber.outbox.clear();
+            subscriber.emitter.completeWithError(exception);
+        }
+    }
+
+    private static ThreadFactory senderThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final long[] lastSeqs;
+        private final Queue<SseEmitter.SseEventBuilder> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, long[] lastSeqs) {
+            this.emitter = emitter;
+            this.lastSeqs = lastSeqs;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.exception.InvalidRequestException;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * How far a change feed reader has read, as the last sequence number seen on each shard. It is written as
+ * a comma separated list in shard order, which for an unsharded deployment is just the last sequence number.
+ */
+public class ChangeFeedPosition {
+    private final long[] seqs;
+
+    private ChangeFeedPosition(long[] seqs) {
+        this.seqs = seqs;
+    }
+
+    public static ChangeFeedPosition of(long[] seqs) {
+        return new ChangeFeedPosition(seqs.clone());
+    }
+
+    /**
+     * Parses a position for {@code shardCount} shards; a bare {@code 0} means the start of every shard.
+     */
+    public static ChangeFeedPosition parse(String value, int shardCount) {
+        String[] parts = value.trim().split(",");
+        long[] seqs = new long[shardCount];
+        try {
+            if (parts.length == 1 && Long.parseLong(parts[0].trim()) == 0) {
+                return new ChangeFeedPosition(seqs);
+            }
+            if (parts.length != shardCount) {
+                throw new InvalidRequestException("Change feed position must have one sequence number per shard");
+            }
+            for (int shard = 0; shard < shardCount; shard++) {
+                seqs[shard] = Long.parseLong(parts[shard].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid change feed position: " + value);
+        }
+        return new ChangeFeedPosition(seqs);
+    }
+
+    public long seq(int shard) {
+        return seqs[shard];
+    }
+
+    public long[] toArray() {
+        return seqs.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.stream(seqs)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,55 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeEvent;
+import com.afs.restapi.entity.ChangeType;
+import com.afs.restapi.repository.ChangeEventRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Transactional outbox for employee and company writes. Events are only recorded inside the
+ * caller's transaction so that a change and its event are committed (or rolled back) together.
+ * Once the transaction commits, the change invalidates the cached responses it affects.
+ */
+@Service
+public class ChangeFeedService {
+    private final ChangeEventRepository changeEventRepository;
+    private final ResponseCache responseCache;
+
+    public ChangeFeedService(ChangeEventRepository changeEventRepository, ResponseCache responseCache) {
+        this.changeEventRepository = changeEventRepository;
+        this.responseCache = responseCache;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangeEntityType entityType, Long entityId, ChangeType changeType) {
+        changeEventRepository.save(new ChangeEvent(entityType, entityId, changeType, Instant.now()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                responseCache.invalidate(entityType, entityId, changeType);
+            }
+        });
+    }
+
+    public List<ChangeEvent> findAfter(long seq, int limit) {
+        return changeEventRepository.findAllBySeqGreaterThanOrderBySeqAsc(seq, PageRequest.of(0, limit));
+    }
+
+    public long findLatestSeq() {
+        return changeEventRepository.findMaxSeq().orElse(0L);
+    }
+
+    @Transactional
+    public int deleteCreatedBefore(Instant cutoff) {
+        return changeEventRepository.deleteAllCreatedBefore(cutoff);
+    }
+}
@@ -1,67 +1,246 @@
 package com.afs.restapi.service;
 
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeType;
 import com.afs.restapi.entity.Company;
+import com.afs.restapi.entity.Employee;
 import com.afs.restapi.exception.CompanyNotFoundException;
 import com.afs.restapi.repository.CompanyRepository;
+import com.afs.restapi.repository.CompanyEmployeesCount;
 import com.afs.restapi.repository.EmployeeRepository;
 import com.afs.restapi.service.dto.CompanyRequest;
 import com.afs.restapi.service.dto.CompanyResponse;
 import com.afs.restapi.service.dto.EmployeeResponse;
+import com.afs.restapi.service.dto.MultiGetResponse;
 import com.afs.restapi.service.mapper.CompanyMapper;
 import com.afs.restapi.service.mapper.EmployeeMapper;
+import com.afs.restapi.sharding.ShardRouter;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class CompanyService {
+    private static final Comparator<CompanyResponse> BY_ID = Comparator.comparing(CompanyResponse::getId);
+    private static final Comparator<Company> COMPANIES_BY_ID = Comparator.comparing(Company::getId);
+
     private final CompanyRepository companyRepository;
     private final EmployeeRepository employeeRepository;
+    private final ChangeFeedService changeFeedService;
+    private final RequestCoalescer requestCoalescer;
+    private final IdExistenceFilters idExistenceFilters;
+    private final ShardRouter shardRouter;
+    private final EmployeeWriteBehindBuffer writeBehindBuffer;
+    private final ResponseCache responseCache;
 
-    public CompanyService(CompanyRepository companyRepository, EmployeeRepository employeeRepository) {
+    public CompanyService(CompanyRepository companyRepository, EmployeeRepository employeeRepository,
+                          ChangeFeedService changeFeedService, RequestCoalescer requestCoalescer,
+                          IdExistenceFilters idExistenceFilters, ShardRouter shardRouter,
+                          EmployeeWriteBehindBuffer writeBehindBuffer, ResponseCache responseCache) {
         this.companyRepository = companyRepository;
         this.employeeRepository = employeeRepository;
+        this.changeFeedService = changeFeedService;
+        this.requestCoalescer = requestCoalescer;
+        this.idExistenceFilters = idExistenceFilters;
+        this.shardRouter = shardRouter;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.responseCache = responseCache;
     }
 
     public List<CompanyResponse> findAll() {
-        return companyRepository.findAll().stream()
-                .map(CompanyMapper::toResponse)
-                .collect(Collectors.toList());
+        return shardRouter.mergeAll(shard -> withEmployeesCounts(companyRepository.findAll()), BY_ID);
+    }
+
+    public List<CompanyResponse> findAllWithEmployees() {
+        return shardRouter.mergeAll(shard -> withEmployees(companyRepository.findAll()), BY_ID);
     }
 
     public CompanyResponse findById(Long id) {
-        Company company = companyRepository.findById(id)
-                .orElseThrow(CompanyNotFoundException::new);
-        return CompanyMapper.toResponse(company);
+        if (!idExistenceFilters.companies().mightContain(id)) {
+            throw new CompanyNotFoundException();
+        }
+        return requestCoalescer.execute("companyById", id, () ->
+                shardRouter.onShard(shardRouter.shardForCompany(id), () -> {
+                    Company company = companyRepository.findById(id)
+                            .orElseThrow(CompanyNotFoundException::new);
+                    return withEmployeesCounts(List.of(company)).get(0);
+                }));
+    }
+
+    public CompanyResponse findByIdWithEmployees(Long id) {
+        if (!idExistenceFilters.companies().mightContain(id)) {
+            throw new CompanyNotFoundException();
+        }
+        return requestCoalescer.execute("companyWithEmployeesById", id, () -> {
+            Company company = shardRouter.onShard(shardRouter.shardForCompany(id), () -> companyRepository.findWithEmployeesById(id))
+                    .orElseThrow(CompanyNotFoundException::new);
+            return CompanyMapper.toResponse(company, overlay(company.getEmployees()));
+        });
+    }
+
+    /**
+     * Serves the ids the {@link ResponseCache} holds a fresh single company for, resolves the others with
+     * one IN-list query per chunk, plus one grouped count query per chunk for the employee counts, on each
+     * shard that owns some of them, caches those, and returns the hits in request order.
+     */
+    public MultiGetResponse<CompanyResponse> findAllByIds(List<Long> ids) {
+        long stamp = responseCache.currentStamp();
+        Map<Long, CompanyResponse> companies = new HashMap<>();
+        List<Long> uncachedIds = new ArrayList<>();
+        for (Long id : IdLists.distinct(ids)) {
+            CompanyResponse cached = responseCache.getValue(ResponseCache.Key.company(id, false), CompanyResponse.class);
+            if (cached == null) {
+                uncachedIds.add(id);
+            } else {
+                companies.put(id, cached);
+            }
+        }
+        Map<Integer, List<Long>> idsByShard = shardRouter.groupByShard(uncachedIds, shardRouter::shardForCompany);
+        shardRouter.onShards(idsByShard.keySet(), shard -> {
+            List<CompanyResponse> found = new ArrayList<>();
+            for (List<Long> chunk : IdLists.chunks(idsByShard.get(shard), IdLists.IN_LIST_CHUNK_SIZE)) {
+                found.addAll(withEmployeesCounts(companyRepository.findAllById(chunk)));
+            }
+            return found;
+        }).forEach(found -> found.forEach(company -> {
+            responseCache.putValue(ResponseCache.Key.company(company.getId(), false), stamp, company);
+            companies.put(company.getId(), company);
+        }));
+        List<CompanyResponse> items = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            CompanyResponse company = companies.get(id);
+            if (company == null) {
+                missingIds.add(id);
+            } else {
+                items.add(company);
+            }
+        }
+        return new MultiGetResponse<>(items, missingIds);
     }
 
     public List<CompanyResponse> findByPage(Integer pageNumber, Integer pageSize) {
-        return companyRepository.findAll(PageRequest.of(pageNumber-1, pageSize)).stream()
-                .map(CompanyMapper::toResponse)
+        return findPage(pageNumber, pageSize, this::withEmployeesCounts);
+    }
+
+    public List<CompanyResponse> findByPageWithEmployees(Integer pageNumber, Integer pageSize) {
+        return findPage(pageNumber, pageSize, this::withEmployees);
+    }
+
+    /**
+     * On a sharded deployment the page is cut from the merged company rows first, and only the companies
+     * on the page get their employees or employee counts, from their own shards.
+     */
+    private List<CompanyResponse> findPage(Integer pageNumber, Integer pageSize,
+                                           Function<List<Company>, List<CompanyResponse>> toResponses) {
+        if (!shardRouter.isSharded()) {
+            return toResponses.apply(companyRepository.findAll(PageRequest.of(pageNumber-1, pageSize)).getContent());
+        }
+        long offset = (long) (pageNumber - 1) * pageSize;
+        PageRequest firstRows = PageRequest.of(0, shardRouter.firstRowsForPage(offset, pageSize), Sort.by("id"));
+        List<Company> page = shardRouter.mergePage((int) offset, pageSize,
+                shard -> companyRepository.findAll(firstRows).getContent(), COMPANIES_BY_ID);
+        Map<Integer, List<Company>> pageByShard = shardRouter.groupByShard(page,
+                company -> shardRouter.shardForCompany(company.getId()));
+        Map<Long, CompanyResponse> responses = new HashMap<>();
+        shardRouter.onShards(pageByShard.keySet(), shard -> toResponses.apply(pageByShard.get(shard)))
+                .forEach(found -> found.forEach(company -> responses.put(company.getId(), company)));
+        return page.stream()
+                .map(company -> responses.get(company.getId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Counts the employees of all given companies with one grouped query per chunk of company ids
+     * instead of initializing each company's lazy collection.
+     */
+    private List<CompanyResponse> withEmployeesCounts(List<Company> companies) {
+        Map<Long, Integer> employeesCounts = new HashMap<>();
+        for (List<Long> chunk : IdLists.chunks(companyIds(companies), IdLists.IN_LIST_CHUNK_SIZE)) {
+            for (CompanyEmployeesCount count : employeeRepository.countAllByCompanyIdIn(chunk)) {
+                employeesCounts.put(count.getCompanyId(), count.getEmployeesCount().intValue());
+            }
+        }
+        return companies.stream()
+                .map(company -> CompanyMapper.toResponse(company, employeesCounts.getOrDefault(company.getId(), 0)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Loads the employees of all given companies with one IN-list query per chunk of company ids
+     * instead of initializing each company's lazy collection.
+     */
+    private List<CompanyResponse> withEmployees(List<Company> companies) {
+        Map<Long, List<Employee>> employeesByCompanyId = new HashMap<>();
+        for (List<Long> chunk : IdLists.chunks(companyIds(companies), IdLists.IN_LIST_CHUNK_SIZE)) {
+            employeeRepository.findAllByCompanyIdIn(chunk).forEach(employee ->
+                    employeesByCompanyId.computeIfAbsent(employee.getCompanyId(), key -> new ArrayList<>()).add(employee));
+        }
+        return companies.stream()
+                .map(company -> CompanyMapper.toResponse(company, overlay(employeesByCompanyId.getOrDefault(company.getId(), List.of()))))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Applies the updates the write-behind buffer has not flushed yet, as every employee read does.
+     */
+    private List<Employee> overlay(List<Employee> employees) {
+        return employees.stream()
+                .map(writeBehindBuffer::overlay)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> companyIds(List<Company> companies) {
+        return companies.stream()
+                .map(Company::getId)
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public void update(Long id, CompanyRequest companyRequest) {
-        Company toBeUpdatedCompany = companyRepository.findById(id)
+        if (!idExistenceFilters.companies().mightContain(id)) {
+            throw new CompanyNotFoundException();
+        }
+        Company toBeUpdatedCompany = shardRouter.onShard(shardRouter.shardForCompany(id), () -> companyRepository.findById(id))
                 .orElseThrow(CompanyNotFoundException::new);
         toBeUpdatedCompany.setName(companyRequest.getName());
         companyRepository.save(toBeUpdatedCompany);
+        changeFeedService.record(ChangeEntityType.COMPANY, id, ChangeType.UPDATED);
     }
 
+    @Transactional
     public CompanyResponse create(CompanyRequest companyRequest) {
-        Company company = CompanyMapper.toEntity(companyRequest);
-        return CompanyMapper.toResponse(companyRepository.save(company));
+        Company company = shardRouter.onShard(shardRouter.shardForNewRow(),
+                () -> companyRepository.save(CompanyMapper.toEntity(companyRequest)));
+        changeFeedService.record(ChangeEntityType.COMPANY, company.getId(), ChangeType.CREATED);
+        return CompanyMapper.toResponse(company, 0);
     }
 
     public List<EmployeeResponse> findEmployeesByCompanyId(Long id) {
-        return employeeRepository.findAllByCompanyId(id).stream()
+        return shardRouter.onShard(shardRouter.shardForCompany(id), () -> employeeRepository.findAllByCompanyId(id)).stream()
+                .map(writeBehindBuffer::overlay)
                 .map(EmployeeMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public void delete(Long id) {
-        companyRepository.deleteById(id);
+        List<Employee> removedEmployees = shardRouter.onShard(shardRouter.shardForCompany(id), () -> {
+            List<Employee> employees = employeeRepository.findAllByCompanyId(id);
+            companyRepository.deleteById(id);
+            return employees;
+        });
+        removedEmployees.forEach(employee ->
+                changeFeedService.record(ChangeEntityType.EMPLOYEE, employee.getId(), ChangeType.DELETED));
+        changeFeedService.record(ChangeEntityType.COMPANY, id, ChangeType.DELETED);
     }
 }
@@ -0,0 +1,334 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.config.JobProperties;
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeType;
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.entity.Job;
+import com.afs.restapi.entity.JobCheckpoint;
+import com.afs.restapi.entity.JobType;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.repository.JobCheckpointRepository;
+import com.afs.restapi.repository.JobRepository;
+import com.afs.restapi.service.dto.EmployeeRequest;
+import com.afs.restapi.service.dto.JobRequest;
+import com.afs.restapi.service.mapper.EmployeeMapper;
+import com.afs.restapi.sharding.ShardRouter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Does the work of employee jobs in chunks of {@code restapi.jobs.chunk-size} rows, each in its own
+ * transaction, and checkpoints after every chunk.
+ * <p>
+ * Every chunk commits together with its checkpoint, so no chunk is applied twice. The job table lives on
+ * shard 0, where a chunk updates the job row in its own transaction. A chunk on another shard writes a
+ * {@link JobCheckpoint} on its shard instead and updates the job row after it commits; a resumed job
+ * continues from whichever checkpoint is further along. Exports append to a file and record its committed
+ * length, which is where a resumed export truncates it back to.
+ */
+@Component
+public class EmployeeJobRunner {
+    static final String EXPORT_HEADER = "id,name,age,gender,salary,companyId\n";
+
+    private final EmployeeRepository employeeRepository;
+    private final JobRepository jobRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final ChangeFeedService changeFeedService;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final IdExistenceFilters idExistenceFilters;
+    private final EmployeeWriteBehindBuffer writeBehindBuffer;
+    private final JobProperties properties;
+
+    public EmployeeJobRunner(EmployeeRepository employeeRepository, JobRepository jobRepository,
+                             JobCheckpointRepository jobCheckpointRepository, ChangeFeedService changeFeedService,
+                             TransactionTemplate transactionTemplate, ShardRouter shardRouter,
+                             IdExistenceFilters idExistenceFilters, EmployeeWriteBehindBuffer writeBehindBuffer,
+                             JobProperties properties) {
+        this.employeeRepository = employeeRepository;
+        this.jobRepository = jobRepository;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.changeFeedService = changeFeedService;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.idExistenceFilters = idExistenceFilters;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.properties = properties;
+    }
+
+    public Path exportFile(Long jobId) {
+        return properties.getExportDirectory().resolve("job-" + jobId + ".csv");
+    }
+
+    /**
+     * Runs the job from its checkpoint to the end.
+     *
+     * @throws CancellationException when the job was cancelled, lost its lease or its thread was interrupted
+     *                               between two chunks
+     */
+    public void run(Job job, JobRequest request) {
+        resumeFromShardCheckpoints(job);
+        switch (job.getType()) {
+            case EMPLOYEE_IMPORT:
+                importEmployees(job, request.getEmployees());
+                break;
+            case EMPLOYEE_EXPORT:
+                writeBehindBuffer.flush();
+                export(job, request);
+                break;
+            case EMPLOYEE_DELETE:
+                countTotal(job, request);
+                forEachIdChunk(job, request, (fromId, toId) -> {
+                    int count = employeeRepository.delete(request.getCompanyId(), request.getGender(), fromId, toId);
+                    if (count > 0) {
+                        changeFeedService.record(ChangeEntityType.EMPLOYEE, null, ChangeType.DELETED);
+                        idExistenceFilters.employees().recordDeletes(count);
+                    }
+                    return count;
+                });
+                break;
+            case EMPLOYEE_ADJUSTMENT:
+                writeBehindBuffer.flush();
+                countTotal(job, request);
+                forEachIdChunk(job, request, (fromId, toId) -> {
+                    int count = employeeRepository.adjust(request.getCompanyId(), request.getGender(),
+                            request.getSalaryRaisePercent(), request.getAgeIncrement(), fromId, toId);
+                    if (count > 0) {
+                        changeFeedService.record(ChangeEntityType.EMPLOYEE, null, ChangeType.UPDATED);
+                    }
+                    return count;
+                });
+                break;
+            default:
+                throw new IllegalStateException("Unknown job type " + job.getType());
+        }
+        for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+            shardRouter.runOnShard(shard, () -> jobCheckpointRepository.deleteByJobId(job.getId()));
+        }
+    }
+
+    /**
+     * Moves the job to a checkpoint on another shard that is further along than the job row, i.e. a chunk
+     * that committed before the job row could record it.
+     */
+    private void resumeFromShardCheckpoints(Job job) {
+        for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+            JobCheckpoint checkpoint = shardRouter.onShard(shard, () -> jobCheckpointRepository.findById(job.getId()))
+                    .orElse(null);
+            if (checkpoint != null && isAhead(job, shard, checkpoint.getCursorId())) {
+                job.setCursorShard(shard);
+                job.setCursorId(checkpoint.getCursorId());
+                job.setProcessed(checkpoint.getProcessed());
+            }
+        }
+    }
+
+    /**
+     * Import cursors count items across all shards; the other jobs walk the shards in order.
+     */
+    private static boolean isAhead(Job job, int shard, long cursorId) {
+        if (job.getType() == JobType.EMPLOYEE_IMPORT) {
+            return cursorId > job.getCursorId();
+        }
+        return shard > job.getCursorShard() || (shard == job.getCursorShard() && cursorId > job.getCursorId());
+    }
+
+    /**
+     * Inserts the employees in order. The checkpoint is the number of employees committed, and a chunk
+     * only holds consecutive employees of the same shard.
+     */
+    private void importEmployees(Job job, List<EmployeeRequest> employees) {
+        if (job.getTotal() == null) {
+            setTotal(job, employees.size());
+        }
+        int next = (int) job.getCursorId();
+        while (next < employees.size()) {
+            checkContinue(job);
+            int shard = shardOf(employees.get(next), shardRouter.shardForNewRow());
+            int from = next;
+            int to = from;
+            while (to < employees.size() && to - from < properties.getChunkSize()
+                    && shardOf(employees.get(to), shard) == shard) {
+                to++;
+            }
+            List<Employee> chunk = employees.subList(from, to).stream()
+                    .map(EmployeeMapper::toEntity)
+                    .collect(Collectors.toList());
+            runChunk(job, shard, to, () -> {
+                employeeRepository.saveAll(chunk).forEach(employee ->
+                        changeFeedService.record(ChangeEntityType.EMPLOYEE, employee.getId(), ChangeType.CREATED));
+                return chunk.size();
+            });
+            next = to;
+        }
+    }
+
+    private int shardOf(EmployeeRequest employee, int companylessShard) {
+        return employee.getCompanyId() == null
+                ? companylessShard
+                : shardRouter.shardForCompany(employee.getCompanyId().longValue());
+    }
+
+    private void export(Job job, JobRequest request) {
+        countTotal(job, request);
+        Path file = exportFile(job.getId());
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.truncate(job.getResultBytes());
+                channel.position(job.getResultBytes());
+                if (job.getResultBytes() == 0) {
+                    append(channel, EXPORT_HEADER);
+                    checkpoint(job, job.getCursorShard(), job.getCursorId(), channel.size());
+                }
+                for (int shard = job.getCursorShard(); shard < shardRouter.getShardCount(); shard++) {
+                    long afterId = shard == job.getCursorShard() ? job.getCursorId() : 0;
+                    while (true) {
+                        checkContinue(job);
+                        long from = afterId;
+                        List<Employee> chunk = shardRouter.onShard(shard, () -> employeeRepository.findChunkAfter(
+                                request.getCompanyId(), request.getGender(), from, properties.getChunkSize()));
+                        if (chunk.isEmpty()) {
+                            break;
+                        }
+                        append(channel, chunk.stream().map(EmployeeJobRunner::toCsv).collect(Collectors.joining()));
+                        afterId = chunk.get(chunk.size() - 1).getId();
+                        job.setProcessed(job.getProcessed() + chunk.size());
+                        checkpoint(job, shard, afterId, channel.size());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write export " + file, e);
+        }
+    }
+
+    private static void append(FileChannel channel, String text) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+    }
+
+    private static String toCsv(Employee employee) {
+        return employee.getId() + "," + quote(employee.getName()) + "," + value(employee.getAge()) + ","
+                + quote(employee.getGender()) + "," + value(employee.getSalary()) + ","
+                + value(employee.getCompanyId()) + "\n";
+    }
+
+    private static String quote(String text) {
+        return text == null ? "" : "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * Walks the matching employees shard by shard, from the checkpoint on, and applies {@code work} to the
+     * id range of the next {@code chunkSize} matching ids at a time, so sparse matches do not cost a chunk
+     * per empty span of ids.
+     */
+    private void forEachIdChunk(Job job, JobRequest request, ChunkWork work) {
+        int chunkSize = properties.getChunkSize();
+        for (int shard = job.getCursorShard(); shard < shardRouter.getShardCount(); shard++) {
+            long afterId = shard == job.getCursorShard() ? job.getCursorId() : 0;
+            while (true) {
+                checkContinue(job);
+                long from = afterId;
+                List<Long> ids = shardRouter.onShard(shard, () -> employeeRepository.findMatchingIdsAfter(
+                        request.getCompanyId(), request.getGender(), from, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long fromId = ids.get(0);
+                long toId = ids.get(ids.size() - 1);
+                runChunk(job, shard, toId, () -> work.apply(fromId, toId));
+                afterId = toId;
+            }
+        }
+    }
+
+    /**
+     * Runs one chunk and commits its checkpoint in the same transaction. On a shard other than 0 the shard's
+     * {@link JobCheckpoint} is locked before the work, so a second worker of the job, one that kept running
+     * after losing its lease, waits and then finds the chunk done instead of applying it again.
+     */
+    private void runChunk(Job job, int shard, long cursorId, IntSupplier work) {
+        shardRouter.runOnShard(shard, () -> transactionTemplate.executeWithoutResult(status -> {
+            JobCheckpoint shardCheckpoint = shard == 0 ? null : jobCheckpointRepository.findForUpdate(job.getId())
+                    .orElseGet(() -> new JobCheckpoint(job.getId(), 0, 0));
+            if (shardCheckpoint != null && shardCheckpoint.getCursorId() >= cursorId) {
+                throw new CancellationException();
+            }
+            int count = work.getAsInt();
+            job.setProcessed(job.getProcessed() + count);
+            if (shard == 0) {
+                checkpoint(job, shard, cursorId, job.getResultBytes());
+            } else {
+                shardCheckpoint.setCursorId(cursorId);
+                shardCheckpoint.setProcessed(job.getProcessed());
+                jobCheckpointRepository.save(shardCheckpoint);
+            }
+        }));
+        if (shard != 0) {
+            checkpoint(job, shard, cursorId, job.getResultBytes());
+        }
+    }
+
+    /**
+     * Records the checkpoint on the job row, provided this instance still holds the job's lease.
+     */
+    private void checkpoint(Job job, int cursorShard, long cursorId, long resultBytes) {
+        job.setCursorShard(cursorShard);
+        job.setCursorId(cursorId);
+        job.setResultBytes(resultBytes);
+        if (jobRepository.checkpoint(job.getId(), job.getOwner(), job.getProcessed(), cursorShard, cursorId,
+                resultBytes, Instant.now()) == 0) {
+            throw new CancellationException();
+        }
+    }
+
+    private void countTotal(Job job, JobRequest request) {
+        if (job.getTotal() != null) {
+            return;
+        }
+        long total = 0;
+        for (Long count : shardRouter.onEveryShard(shard ->
+                employeeRepository.countMatching(request.getCompanyId(), request.getGender()))) {
+            total += count;
+        }
+        setTotal(job, total);
+    }
+
+    private void setTotal(Job job, long total) {
+        job.setTotal(total);
+        jobRepository.updateTotal(job.getId(), total);
+    }
+
+    private void checkContinue(Job job) {
+        if (Thread.currentThread().isInterrupted() || !jobRepository.shouldContinue(job.getId(), job.getOwner())) {
+            throw new CancellationException();
+        }
+    }
+
+    private interface ChunkWork {
+        int apply(long fromId, long toId);
+    }
+}
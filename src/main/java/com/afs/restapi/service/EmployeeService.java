@@ -1,41 +1,142 @@
 package com.afs.restapi.service;
 
+import com.afs.restapi.config.BulkAdjustmentProperties;
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeType;
 import com.afs.restapi.entity.Employee;
 import com.afs.restapi.exception.EmployeeNotFoundException;
+import com.afs.restapi.exception.InvalidRequestException;
 import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.dto.EmployeeAdjustmentRequest;
+import com.afs.restapi.service.dto.EmployeeAdjustmentResponse;
 import com.afs.restapi.service.dto.EmployeeRequest;
 import com.afs.restapi.service.dto.EmployeeResponse;
 import com.afs.restapi.service.dto.EmployeeUpdateRequest;
+import com.afs.restapi.service.dto.MultiGetResponse;
 import com.afs.restapi.service.mapper.EmployeeMapper;
+import com.afs.restapi.sharding.ShardRouter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class EmployeeService {
+    private static final Comparator<Employee> BY_ID = Comparator.comparing(Employee::getId);
+    private static final int MAX_SALARY_RAISE_PERCENT = 100;
+
     private final EmployeeRepository employeeRepository;
+    private final ChangeFeedService changeFeedService;
+    private final RequestCoalescer requestCoalescer;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkAdjustmentProperties bulkAdjustmentProperties;
+    private final IdExistenceFilters idExistenceFilters;
+    private final ShardRouter shardRouter;
+    private final EmployeeWriteBehindBuffer writeBehindBuffer;
+    private final ResponseCache responseCache;
 
-    public EmployeeService(EmployeeRepository employeeRepository) {
+    public EmployeeService(EmployeeRepository employeeRepository, ChangeFeedService changeFeedService,
+                           RequestCoalescer requestCoalescer, TransactionTemplate transactionTemplate,
+                           BulkAdjustmentProperties bulkAdjustmentProperties, IdExistenceFilters idExistenceFilters,
+                           ShardRouter shardRouter, EmployeeWriteBehindBuffer writeBehindBuffer,
+                           ResponseCache responseCache) {
         this.employeeRepository = employeeRepository;
+        this.changeFeedService = changeFeedService;
+        this.requestCoalescer = requestCoalescer;
+        this.transactionTemplate = transactionTemplate;
+        this.bulkAdjustmentProperties = bulkAdjustmentProperties;
+        this.idExistenceFilters = idExistenceFilters;
+        this.shardRouter = shardRouter;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.responseCache = responseCache;
     }
 
     public List<EmployeeResponse> findAll() {
-        return employeeRepository.findAll().stream()
-                .map(EmployeeMapper::toResponse)
+        return shardRouter.mergeAll(shard -> employeeRepository.findAll(), BY_ID).stream()
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
     public EmployeeResponse findById(Long id) {
-        Employee employee = employeeRepository.findById(id)
-                .orElseThrow(EmployeeNotFoundException::new);
-        return EmployeeMapper.toResponse(employee);
+        if (!idExistenceFilters.employees().mightContain(id)) {
+            throw new EmployeeNotFoundException();
+        }
+        return requestCoalescer.execute("employeeById", id, () -> {
+            Employee employee = shardRouter.onShard(shardRouter.shardForId(id), () -> employeeRepository.findById(id))
+                    .orElseThrow(EmployeeNotFoundException::new);
+            return toResponse(employee);
+        });
+    }
+
+    /**
+     * Serves the ids the {@link ResponseCache} holds a fresh single employee for, resolves the others with
+     * one IN-list query per chunk on each shard that owns some of them, in parallel, caches those, and
+     * returns the hits in request order.
+     */
+    public MultiGetResponse<EmployeeResponse> findAllByIds(List<Long> ids) {
+        long stamp = responseCache.currentStamp();
+        Map<Long, EmployeeResponse> employees = new HashMap<>();
+        List<Long> uncachedIds = new ArrayList<>();
+        for (Long id : IdLists.distinct(ids)) {
+            EmployeeResponse cached = responseCache.getValue(ResponseCache.Key.employee(id), EmployeeResponse.class);
+            if (cached == null) {
+                uncachedIds.add(id);
+            } else {
+                employees.put(id, cached);
+            }
+        }
+        Map<Integer, List<Long>> idsByShard = shardRouter.groupByShard(uncachedIds, shardRouter::shardForId);
+        shardRouter.onShards(idsByShard.keySet(), shard -> {
+            List<Employee> found = new ArrayList<>();
+            for (List<Long> chunk : IdLists.chunks(idsByShard.get(shard), IdLists.IN_LIST_CHUNK_SIZE)) {
+                found.addAll(employeeRepository.findAllById(chunk));
+            }
+            return found;
+        }).forEach(found -> found.forEach(employee -> {
+            EmployeeResponse response = toResponse(employee);
+            responseCache.putValue(ResponseCache.Key.employee(employee.getId()), stamp, response);
+            employees.put(employee.getId(), response);
+        }));
+        List<EmployeeResponse> items = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            EmployeeResponse employee = employees.get(id);
+            if (employee == null) {
+                missingIds.add(id);
+            } else {
+                items.add(employee);
+            }
+        }
+        return new MultiGetResponse<>(items, missingIds);
     }
 
+    /**
+     * With write-behind enabled the update is only checked for an existing employee and handed to the
+     * {@link EmployeeWriteBehindBuffer}; its change event is recorded when the buffer flushes it.
+     */
+    @Transactional
     public void update(Long id, EmployeeUpdateRequest employeeUpdateRequest) {
-        Employee toBeUpdatedEmployee = employeeRepository.findById(id)
+        if (!idExistenceFilters.employees().mightContain(id)) {
+            throw new EmployeeNotFoundException();
+        }
+        if (writeBehindBuffer.isEnabled()) {
+            if (!writeBehindBuffer.isPending(id)
+                    && !shardRouter.onShard(shardRouter.shardForId(id), () -> employeeRepository.existsById(id))) {
+                throw new EmployeeNotFoundException();
+            }
+            writeBehindBuffer.submit(id, employeeUpdateRequest.getAge(), employeeUpdateRequest.getSalary());
+            return;
+        }
+        Employee toBeUpdatedEmployee = shardRouter.onShard(shardRouter.shardForId(id), () -> employeeRepository.findById(id))
                 .orElseThrow(EmployeeNotFoundException::new);
         if (employeeUpdateRequest.getSalary() != null) {
             toBeUpdatedEmployee.setSalary(employeeUpdateRequest.getSalary());
@@ -44,27 +145,118 @@ public class EmployeeService {
             toBeUpdatedEmployee.setAge(employeeUpdateRequest.getAge());
         }
         employeeRepository.save(toBeUpdatedEmployee);
+        changeFeedService.record(ChangeEntityType.EMPLOYEE, id, ChangeType.UPDATED);
     }
 
     public List<EmployeeResponse> findAllByGender(String gender) {
-        return employeeRepository.findAllByGender(gender).stream()
-                .map(EmployeeMapper::toResponse)
-                .collect(Collectors.toList());
+        return requestCoalescer.execute("employeesByGender", gender, () ->
+                shardRouter.mergeAll(shard -> employeeRepository.findAllByGender(gender), BY_ID).stream()
+                        .map(this::toResponse)
+                        .collect(Collectors.toList()));
     }
 
+    @Transactional
     public EmployeeResponse create(EmployeeRequest employeeRequest) {
-        Employee employee = EmployeeMapper.toEntity(employeeRequest);
-        return EmployeeMapper.toResponse(employeeRepository.save(employee));
+        Employee toBeCreatedEmployee = EmployeeMapper.toEntity(employeeRequest);
+        int shard = toBeCreatedEmployee.getCompanyId() == null
+                ? shardRouter.shardForNewRow()
+                : shardRouter.shardForCompany(toBeCreatedEmployee.getCompanyId());
+        Employee employee = shardRouter.onShard(shard, () -> employeeRepository.save(toBeCreatedEmployee));
+        changeFeedService.record(ChangeEntityType.EMPLOYEE, employee.getId(), ChangeType.CREATED);
+        return EmployeeMapper.toResponse(employee);
     }
 
     public List<EmployeeResponse> findByPage(Integer pageNumber, Integer pageSize) {
-        Page<Employee> employeesInThePage = employeeRepository.findAll(PageRequest.of(pageNumber-1, pageSize));
-        return employeesInThePage.stream()
-                .map(EmployeeMapper::toResponse)
+        if (!shardRouter.isSharded()) {
+            Page<Employee> employeesInThePage = employeeRepository.findAll(PageRequest.of(pageNumber-1, pageSize));
+            return employeesInThePage.stream()
+                    .map(this::toResponse)
+                    .collect(Collectors.toList());
+        }
+        long offset = (long) (pageNumber - 1) * pageSize;
+        PageRequest firstRows = PageRequest.of(0, shardRouter.firstRowsForPage(offset, pageSize), Sort.by("id"));
+        return shardRouter.mergePage((int) offset, pageSize, shard -> employeeRepository.findAll(firstRows).getContent(), BY_ID)
+                .stream()
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Every read of an employee goes through here, so it shows the acknowledged updates the write-behind
+     * buffer has not flushed yet.
+     */
+    private EmployeeResponse toResponse(Employee employee) {
+        return EmployeeMapper.toResponse(writeBehindBuffer.overlay(employee));
+    }
+
+    @Transactional
     public void delete(Long id) {
-        employeeRepository.deleteById(id);
+        shardRouter.runOnShard(shardRouter.shardForId(id), () -> employeeRepository.deleteById(id));
+        changeFeedService.record(ChangeEntityType.EMPLOYEE, id, ChangeType.DELETED);
+        writeBehindBuffer.discard(id);
+    }
+
+    /**
+     * Applies the adjustment with one UPDATE per chunk of {@code chunkSize} matching rows, each in its own
+     * transaction, so row locks are held only for a chunk at a time on large tables. An adjustment scoped to a
+     * company runs on that company's shard only; otherwise every shard is adjusted in turn.
+     */
+    public EmployeeAdjustmentResponse adjust(EmployeeAdjustmentRequest request) {
+        if (request.getSalaryRaisePercent() == null && request.getAgeIncrement() == null) {
+            throw new InvalidRequestException("salaryRaisePercent or ageIncrement is required");
+        }
+        validateSalaryRaisePercent(request.getSalaryRaisePercent());
+        writeBehindBuffer.flush();
+        if (request.getCompanyId() != null) {
+            return shardRouter.onShard(shardRouter.shardForCompany(request.getCompanyId()), () -> adjustShard(request));
+        }
+        int affectedCount = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            affectedCount += shardRouter.onShard(shard, () -> adjustShard(request)).getAffectedCount();
+        }
+        return new EmployeeAdjustmentResponse(affectedCount);
+    }
+
+    /**
+     * Bounds the raise so no salary can turn negative or overflow the UPDATE's int arithmetic.
+     */
+    static void validateSalaryRaisePercent(Integer salaryRaisePercent) {
+        if (salaryRaisePercent != null && (salaryRaisePercent < 0 || salaryRaisePercent > MAX_SALARY_RAISE_PERCENT)) {
+            throw new InvalidRequestException("salaryRaisePercent must be between 0 and " + MAX_SALARY_RAISE_PERCENT);
+        }
+    }
+
+    /**
+     * Walks the matching rows by keyset: each chunk is the next {@code chunkSize} matching ids after the
+     * last one adjusted, updated by their id span, so sparse or skewed id ranges still give full chunks.
+     */
+    private EmployeeAdjustmentResponse adjustShard(EmployeeAdjustmentRequest request) {
+        int chunkSize = bulkAdjustmentProperties.getChunkSize();
+        int affectedCount = 0;
+        long lastId = 0;
+        while (true) {
+            List<Long> ids = employeeRepository.findMatchingIdsAfter(request.getCompanyId(), request.getGender(), lastId, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+            affectedCount += adjustChunk(request, ids.get(0), lastId);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        return new EmployeeAdjustmentResponse(affectedCount);
+    }
+
+    private int adjustChunk(EmployeeAdjustmentRequest request, long fromId, long toId) {
+        Integer affected = transactionTemplate.execute(status -> {
+            int count = employeeRepository.adjust(request.getCompanyId(), request.getGender(),
+                    request.getSalaryRaisePercent(), request.getAgeIncrement(), fromId, toId);
+            if (count > 0) {
+                changeFeedService.record(ChangeEntityType.EMPLOYEE, null, ChangeType.UPDATED);
+            }
+            return count;
+        });
+        return affected == null ? 0 : affected;
     }
 }
@@ -0,0 +1,134 @@
+package com.afs.restapi.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Append-only file of buffered employee updates, one {@code id,age,salary} line per update with empty
+ * fields for values that were not changed. A line only counts once its newline reached the disk, so a
+ * torn last line from a crash is skipped on replay.
+ * <p>
+ * Appending and forcing are separate steps for group commit: every append gets a sequence number, and
+ * {@link #sync} forces the file once for all lines appended so far, so concurrent writers waiting for
+ * the disk share one force instead of queueing one each.
+ */
+class EmployeeUpdateLog implements AutoCloseable {
+    private final Path file;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long appended;
+    private volatile long synced;
+
+    EmployeeUpdateLog(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve("employee-updates.log");
+        this.channel = open(file);
+    }
+
+    List<EmployeeWriteBehindBuffer.PendingUpdate> replay() throws IOException {
+        List<EmployeeWriteBehindBuffer.PendingUpdate> updates = new ArrayList<>();
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n');
+        if (end < 0) {
+            return updates;
+        }
+        for (String line : content.substring(0, end).split("\n")) {
+            String[] fields = line.split(",", -1);
+            try {
+                updates.add(new EmployeeWriteBehindBuffer.PendingUpdate(Long.parseLong(fields[0]),
+                        fields[1].isEmpty() ? null : Integer.valueOf(fields[1]),
+                        fields[2].isEmpty() ? null : Integer.valueOf(fields[2])));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                // a line torn by a crash, never acknowledged
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Appends the update without forcing it and returns its sequence number for {@link #sync}.
+     */
+    synchronized long append(EmployeeWriteBehindBuffer.PendingUpdate update) throws IOException {
+        ByteBuffer line = encode(List.of(update));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        return ++appended;
+    }
+
+    /**
+     * Returns once the line with the given sequence number is on disk. The first caller forces every line
+     * appended so far; callers whose line was covered by a force in the meantime return without one.
+     */
+    void sync(long sequence) throws IOException {
+        if (synced >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = appended;
+                current = channel;
+            }
+            current.force(false);
+            synced = target;
+        }
+    }
+
+    /**
+     * Replaces the log with just the given updates, e.g. the ones still pending after a flush, through
+     * an atomic rename so a crash leaves either the old or the new log. The updates must cover every
+     * line appended but not yet flushed, as those count as synced afterwards.
+     */
+    void rewrite(Collection<EmployeeWriteBehindBuffer.PendingUpdate> updates) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+                try (FileChannel compactedChannel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    ByteBuffer lines = encode(updates);
+                    while (lines.hasRemaining()) {
+                        compactedChannel.write(lines);
+                    }
+                    compactedChannel.force(true);
+                }
+                channel.close();
+                Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                channel = open(file);
+                synced = appended;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static ByteBuffer encode(Collection<EmployeeWriteBehindBuffer.PendingUpdate> updates) {
+        StringBuilder lines = new StringBuilder();
+        for (EmployeeWriteBehindBuffer.PendingUpdate update : updates) {
+            lines.append(update.getId()).append(',')
+                    .append(update.getAge() == null ? "" : update.getAge()).append(',')
+                    .append(update.getSalary() == null ? "" : update.getSalary()).append('\n');
+        }
+        return ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,326 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.config.WriteBehindProperties;
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeType;
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.sharding.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-behind buffer for employee age and salary updates, enabled by {@code restapi.write-behind.enabled}.
+ * <p>
+ * An update is acknowledged once it is forced to the local {@link EmployeeUpdateLog}, concurrent updates
+ * sharing one force; updates to the same employee are merged in memory, and the scheduled flusher writes
+ * the merged values with one batched UPDATE per shard and records their change events in the same
+ * transaction. The log is replayed on
+ * startup, so an acknowledged update survives a crash, and rewritten with the updates still pending after
+ * every committed batch, so a restart never replays an update that was already written over by a later
+ * adjustment, job or another node.
+ * <p>
+ * A flush never joins the caller's transaction: the caller's transaction is suspended and every shard is
+ * written in a transaction of its own, because a flushed batch is dropped from memory and the log and
+ * must not be undone by a caller rolling back, e.g. an adjustment in a transactional {@code /batch}.
+ */
+@Component
+public class EmployeeWriteBehindBuffer implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(EmployeeWriteBehindBuffer.class);
+    private static final String UPDATE_SQL =
+            "update employee set age = coalesce(?, age), salary = coalesce(?, salary) where id = ?";
+
+    private final WriteBehindProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate outsideTransaction;
+    private final ChangeFeedService changeFeedService;
+    private final ShardRouter shardRouter;
+    private final ResponseCache responseCache;
+    private final Map<Long, PendingUpdate> pending = new LinkedHashMap<>();
+    private final Map<Long, PendingUpdate> flushing = new HashMap<>();
+    private final Object flushLock = new Object();
+    private EmployeeUpdateLog updateLog;
+
+    public EmployeeWriteBehindBuffer(WriteBehindProperties properties, JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate, ChangeFeedService changeFeedService,
+                                     ShardRouter shardRouter, ResponseCache responseCache,
+                                     MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outsideTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.outsideTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        this.changeFeedService = changeFeedService;
+        this.shardRouter = shardRouter;
+        this.responseCache = responseCache;
+        Gauge.builder("restapi.write-behind.pending", this, EmployeeWriteBehindBuffer::getPendingCount)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        updateLog = new EmployeeUpdateLog(properties.getLogDirectory());
+        synchronized (this) {
+            updateLog.replay().forEach(update -> pending.merge(update.getId(), update, PendingUpdate::mergedWith));
+            updateLog.rewrite(pending.values());
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replayed {} buffered employee updates from {}", pending.size(), properties.getLogDirectory());
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized boolean isPending(Long id) {
+        return pending.containsKey(id) || flushing.containsKey(id);
+    }
+
+    /**
+     * Logs the update durably and merges it into the pending update of the employee. Reads overlay pending
+     * updates, so the employee's cached responses are invalidated right away rather than on flush.
+     * <p>
+     * The update is appended and merged under the buffer's lock, which keeps the log in merge order, but
+     * forced to disk outside of it: concurrent submits wait for one shared force of the log rather than
+     * each holding the lock through its own. An update whose force fails is still applied by the flusher,
+     * like a request that timed out after reaching the server.
+     */
+    public void submit(Long id, Integer age, Integer salary) {
+        PendingUpdate update = new PendingUpdate(id, age, salary);
+        long sequence;
+        synchronized (this) {
+            try {
+                sequence = updateLog.append(update);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot log employee update", e);
+            }
+            pending.merge(id, update, PendingUpdate::mergedWith);
+        }
+        responseCache.invalidate(ChangeEntityType.EMPLOYEE, id, ChangeType.UPDATED);
+        try {
+            updateLog.sync(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot log employee update", e);
+        }
+    }
+
+    /**
+     * Applies the pending update of the employee, if any, so reads see acknowledged values before
+     * they are flushed.
+     */
+    public Employee overlay(Employee employee) {
+        if (!properties.isEnabled()) {
+            return employee;
+        }
+        PendingUpdate flushingUpdate;
+        PendingUpdate pendingUpdate;
+        synchronized (this) {
+            flushingUpdate = flushing.get(employee.getId());
+            pendingUpdate = pending.get(employee.getId());
+        }
+        apply(flushingUpdate, employee);
+        apply(pendingUpdate, employee);
+        return employee;
+    }
+
+    /**
+     * Drops the pending and the flushing update of a deleted employee, so reads and a failed flush cannot
+     * bring them back. Inside a transaction they are dropped once the delete commits, so a rolled back
+     * delete keeps them. A flush already writing it, or a replayed entry, is harmless because the UPDATE
+     * then matches no row and no change event is recorded for it.
+     */
+    public void discard(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            drop(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                drop(id);
+            }
+        });
+    }
+
+    private synchronized void drop(Long id) {
+        pending.remove(id);
+        flushing.remove(id);
+    }
+
+    /**
+     * Writes all pending updates. Flushes are serialized so an older value of an employee can never be
+     * committed after a newer one.
+     */
+    @Scheduled(fixedDelayString = "${restapi.write-behind.flush-interval:PT0.1S}")
+    public void flush() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        outsideTransaction.executeWithoutResult(status -> {
+            synchronized (flushLock) {
+                while (true) {
+                    List<PendingUpdate> batch = takeBatch();
+                    if (batch.isEmpty()) {
+                        return;
+                    }
+                    try {
+                        shardRouter.groupByShard(batch, update -> shardRouter.shardForId(update.getId()))
+                                .forEach((shard, updates) -> shardRouter.runOnShard(shard, () -> write(updates)));
+                    } catch (RuntimeException e) {
+                        restore(batch);
+                        throw e;
+                    }
+                    flushed(batch);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (updateLog == null) {
+            return;
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Could not flush buffered employee updates on shutdown, they will be replayed", e);
+        }
+        updateLog.close();
+    }
+
+    /**
+     * Writes the updates of one shard and records a change event for each row that was updated; the update
+     * of an employee deleted in the meantime matches no row and gets no event.
+     */
+    private void write(List<PendingUpdate> updates) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (statement, update) -> {
+                statement.setObject(1, update.getAge());
+                statement.setObject(2, update.getSalary());
+                statement.setLong(3, update.getId());
+            });
+            int index = 0;
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    if (count != 0) {
+                        changeFeedService.record(ChangeEntityType.EMPLOYEE, updates.get(index).getId(), ChangeType.UPDATED);
+                    }
+                    index++;
+                }
+            }
+        });
+    }
+
+    private static void apply(PendingUpdate update, Employee employee) {
+        if (update == null) {
+            return;
+        }
+        if (update.getAge() != null) {
+            employee.setAge(update.getAge());
+        }
+        if (update.getSalary() != null) {
+            employee.setSalary(update.getSalary());
+        }
+    }
+
+    /**
+     * Moves up to a batch of pending updates to {@code flushing}, where reads still see them until
+     * the batch is committed.
+     */
+    private synchronized List<PendingUpdate> takeBatch() {
+        List<PendingUpdate> batch = new ArrayList<>();
+        var iterator = pending.values().iterator();
+        while (iterator.hasNext() && batch.size() < properties.getBatchSize()) {
+            PendingUpdate update = iterator.next();
+            batch.add(update);
+            flushing.put(update.getId(), update);
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    /**
+     * Puts a batch that failed to flush back, underneath any update submitted since. Updates discarded
+     * while the batch was flushing stay discarded.
+     */
+    private synchronized void restore(List<PendingUpdate> batch) {
+        for (PendingUpdate update : batch) {
+            if (flushing.remove(update.getId(), update)) {
+                pending.merge(update.getId(), update, (newer, failed) -> failed.mergedWith(newer));
+            }
+        }
+    }
+
+    /**
+     * Forgets a committed batch and drops it from the log by rewriting the log with the pending updates.
+     */
+    private synchronized void flushed(List<PendingUpdate> batch) {
+        batch.forEach(update -> flushing.remove(update.getId(), update));
+        try {
+            updateLog.rewrite(pending.values());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact employee update log", e);
+        }
+    }
+
+    static class PendingUpdate {
+        private final long id;
+        private final Integer age;
+        private final Integer salary;
+
+        PendingUpdate(long id, Integer age, Integer salary) {
+            this.id = id;
+            this.age = age;
+            this.salary = salary;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        Integer getAge() {
+            return age;
+        }
+
+        Integer getSalary() {
+            return salary;
+        }
+
+        /**
+         * This update followed by {@code newer}: fields set by the newer update win.
+         */
+        PendingUpdate mergedWith(PendingUpdate newer) {
+            return new PendingUpdate(id,
+                    newer.age != null ? newer.age : age,
+                    newer.salary != null ? newer.salary : salary);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.config.ExistenceFilterProperties;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bloom filter over the ids of one entity type. A miss means the id definitely does not exist, so
+ * lookups can answer 404 without a query. Ids removed from the table stay in the filter (they only
+ * cost a false positive) until enough deletes accumulate to justify a rebuild.
+ * <p>
+ * Ids created on other nodes reach the filter through the change log with a short delay. Ids are
+ * allocated in ascending order within each id range, so any id above the highest one known in its range
+ * is passed through to the database instead of being answered from a filter that may not have it yet;
+ * only ids at or below it are answered by the filter.
+ */
+public class IdExistenceFilter {
+    private final ExistenceFilterProperties properties;
+    private final AtomicLong insertions = new AtomicLong();
+    private final AtomicLong deletions = new AtomicLong();
+    private final Deque<RecentAdd> recentAdds = new ConcurrentLinkedDeque<>();
+    private final ToIntFunction<Long> rangeOf;
+    private final AtomicLongArray maxKnownIds;
+    private volatile BloomFilter active;
+    private volatile BloomFilter building;
+    private volatile boolean enabled;
+
+    /**
+     * @param rangeOf     the id range an id is allocated from
+     * @param rangeFloors for each id range, the id just below its first one
+     */
+    public IdExistenceFilter(ExistenceFilterProperties properties, ToIntFunction<Long> rangeOf, long[] rangeFloors) {
+        this.properties = properties;
+        this.enabled = properties.isEnabled();
+        this.rangeOf = rangeOf;
+        this.maxKnownIds = new AtomicLongArray(rangeFloors);
+    }
+
+    public boolean mightContain(Long id) {
+        BloomFilter filter = active;
+        return !enabled || filter == null || id == null || filter.mightContain(id) || isNewerThanKnown(id);
+    }
+
+    /**
+     * Adds an id learned from the change log unless the filter has it already, which is the case for ids
+     * created on this node, so they are not counted twice.
+     */
+    public void addObserved(long id) {
+        BloomFilter filter = active;
+        BloomFilter next = building;
+        if (filter != null && filter.mightContain(id) && (next == null || next.mightContain(id))) {
+            return;
+        }
+        add(id);
+    }
+
+    public void add(long id) {
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(id);
+        }
+        BloomFilter filter = active;
+        if (filter != null) {
+            filter.put(id);
+        }
+        recentAdds.addLast(new RecentAdd(id, System.nanoTime()));
+        insertions.incrementAndGet();
+        observe(id);
+    }
+
+    public void recordDelete() {
+        deletions.incrementAndGet();
+    }
+
+    public void recordDeletes(long count) {
+        deletions.addAndGet(count);
+    }
+
+    public boolean isReady() {
+        return active != null;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean needsRebuild() {
+        BloomFilter filter = active;
+        return filter == null
+                || insertions.get() > filter.getExpectedInsertions()
+                || deletions.get() > filter.getExpectedInsertions() * properties.getRebuildDeleteRatio();
+    }
+
+    /**
+     * Builds a new filter from a paged id scan while the current one keeps serving. Ids added during
+     * the scan go into both filters; ids added shortly before it may belong to transactions the scan
+     * could not see yet, so the recent ones are replayed into the new filter before it is swapped in.
+     *
+     * @param idsAfter returns up to {@code pageSize} ids greater than the given id, in ascending order
+     */
+    public synchronized void rebuild(long expectedCount, BiFunction<Long, Integer, List<Long>> idsAfter) {
+        BloomFilter next = new BloomFilter(Math.max(properties.getMinCapacity(), expectedCount * 2),
+                properties.getFalsePositiveProbability());
+        building = next;
+        long scanned = 0;
+        long lastId = 0;
+        List<Long> page;
+        do {
+            page = idsAfter.apply(lastId, properties.getScanPageSize());
+            for (Long id : page) {
+                next.put(id);
+                observe(id);
+                lastId = id;
+            }
+            scanned += page.size();
+        } while (page.size() == properties.getScanPageSize());
+        pruneRecentAdds();
+        recentAdds.forEach(recentAdd -> next.put(recentAdd.id));
+        insertions.set(scanned);
+        deletions.set(0);
+        active = next;
+        building = null;
+    }
+
+    public void pruneRecentAdds() {
+        long cutoff = System.nanoTime() - properties.getReplayWindow().toNanos();
+        RecentAdd oldest;
+        while ((oldest = recentAdds.peekFirst()) != null && oldest.addedAt - cutoff < 0) {
+            recentAdds.pollFirst();
+        }
+    }
+
+    private boolean isNewerThanKnown(long id) {
+        long maxKnownId = maxKnownIds.get(rangeOf.applyAsInt(id));
+        return id > maxKnownId;
+    }
+
+    private void observe(long id) {
+        maxKnownIds.accumulateAndGet(rangeOf.applyAsInt(id), id, Math::max);
+    }
+
+    private static class RecentAdd {
+        private final long id;
+        private final long addedAt;
+
+        private RecentAdd(long id, long addedAt) {
+            this.id = id;
+            this.addedAt = addedAt;
+        }
+    }
+}
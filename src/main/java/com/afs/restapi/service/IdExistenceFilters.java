@@ -0,0 +1,104 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.config.ExistenceFilterProperties;
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeEvent;
+import com.afs.restapi.entity.ChangeType;
+import com.afs.restapi.repository.CompanyRepository;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the employee and company id filters, builds them after startup and rebuilds them once deletes
+ * or inserts have worn them out. Inserts on this node are fed in by {@code ExistenceFilterEntityListener}
+ * as they happen; inserts on other nodes and all deletes arrive through the change log.
+ */
+@Component
+public class IdExistenceFilters implements ChangeEventListener {
+    private static final Logger log = LoggerFactory.getLogger(IdExistenceFilters.class);
+
+    private final EmployeeRepository employeeRepository;
+    private final CompanyRepository companyRepository;
+    private final IdExistenceFilter employees;
+    private final IdExistenceFilter companies;
+    private final ShardRouter shardRouter;
+
+    public IdExistenceFilters(EmployeeRepository employeeRepository, CompanyRepository companyRepository,
+                              ExistenceFilterProperties properties, ShardRouter shardRouter) {
+        this.employeeRepository = employeeRepository;
+        this.companyRepository = companyRepository;
+        long[] rangeFloors = new long[shardRouter.getShardCount()];
+        for (int shard = 0; shard < rangeFloors.length; shard++) {
+            rangeFloors[shard] = shardRouter.firstIdOf(shard) - 1;
+        }
+        this.employees = new IdExistenceFilter(properties, shardRouter::shardForId, rangeFloors);
+        this.companies = new IdExistenceFilter(properties, shardRouter::shardForId, rangeFloors);
+        this.shardRouter = shardRouter;
+    }
+
+    public IdExistenceFilter employees() {
+        return employees;
+    }
+
+    public IdExistenceFilter companies() {
+        return companies;
+    }
+
+    @Scheduled(fixedDelayString = "${restapi.existence-filter.maintenance-interval:PT1M}")
+    public void maintain() {
+        if (employees.needsRebuild()) {
+            rebuildEmployees();
+        }
+        if (companies.needsRebuild()) {
+            rebuildCompanies();
+        }
+        employees.pruneRecentAdds();
+        companies.pruneRecentAdds();
+    }
+
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            if (event.getEntityId() == null) {
+                continue;
+            }
+            IdExistenceFilter filter = event.getEntityType() == ChangeEntityType.EMPLOYEE ? employees : companies;
+            if (event.getChangeType() == ChangeType.CREATED) {
+                filter.addObserved(event.getEntityId());
+            } else if (event.getChangeType() == ChangeType.DELETED) {
+                filter.recordDelete();
+            }
+        }
+    }
+
+    public void rebuildEmployees() {
+        long start = System.nanoTime();
+        employees.rebuild(countOnEveryShard(employeeRepository::count),
+                (afterId, pageSize) -> shardRouter.mergePage(0, pageSize,
+                        shard -> employeeRepository.findIdsAfter(afterId, PageRequest.of(0, pageSize)), Comparator.naturalOrder()));
+        log.info("Built employee id filter in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void rebuildCompanies() {
+        long start = System.nanoTime();
+        companies.rebuild(countOnEveryShard(companyRepository::count),
+                (afterId, pageSize) -> shardRouter.mergePage(0, pageSize,
+                        shard -> companyRepository.findIdsAfter(afterId, PageRequest.of(0, pageSize)), Comparator.naturalOrder()));
+        log.info("Built company id filter in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long countOnEveryShard(LongSupplier count) {
+        return shardRouter.onEveryShard(shard -> count.getAsLong()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+}
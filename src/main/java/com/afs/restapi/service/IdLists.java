@@ -0,0 +1,29 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.exception.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public class IdLists {
+    public static final int MAX_IDS = 1000;
+    public static final int IN_LIST_CHUNK_SIZE = 500;
+
+    private IdLists(){}
+
+    public static List<Long> distinct(List<Long> ids) {
+        if (ids.size() > MAX_IDS) {
+            throw new InvalidRequestException("at most " + MAX_IDS + " ids can be requested at once");
+        }
+        return new ArrayList<>(new LinkedHashSet<>(ids));
+    }
+
+    public static <T> List<List<T>> chunks(List<T> values, int chunkSize) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += chunkSize) {
+            chunks.add(values.subList(from, Math.min(from + chunkSize, values.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,273 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.config.JobProperties;
+import com.afs.restapi.config.ShardingProperties;
+import com.afs.restapi.entity.Job;
+import com.afs.restapi.entity.JobStatus;
+import com.afs.restapi.entity.JobType;
+import com.afs.restapi.exception.InvalidRequestException;
+import com.afs.restapi.exception.JobNotFoundException;
+import com.afs.restapi.repository.JobRepository;
+import com.afs.restapi.service.dto.JobRequest;
+import com.afs.restapi.service.dto.JobResponse;
+import com.afs.restapi.service.mapper.JobMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queues long-running employee operations in the {@code job} table and runs them on a fixed pool of
+ * workers.
+ * <p>
+ * A job holds at most one connection at a time, so the worker count caps the connections background
+ * jobs take from the pool; it is further limited to half of the smallest connection pool, which is
+ * {@code spring.datasource.hikari.maximum-pool-size} or, when sharded, the pool of any one shard, since
+ * every job may be working on the same shard. Interactive requests always keep the other half.
+ * <p>
+ * A running job is leased to the instance that claimed it. The instance renews the leases of its jobs
+ * every {@code heartbeat-interval}, and any instance queues a job again once its lease has not been renewed
+ * for {@code lease-timeout}, so several instances can share the job table and the jobs of a crashed one
+ * resume from their last checkpoint. A lease is checked before every chunk and with every checkpoint,
+ * so a worker that lost its lease stops without committing another chunk.
+ */
+@Service
+public class JobService implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JobRepository jobRepository;
+    private final EmployeeJobRunner employeeJobRunner;
+    private final ObjectMapper objectMapper;
+    private final JobProperties properties;
+    private final String owner;
+    private final int workerCount;
+    private final ExecutorService workers;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping;
+
+    public JobService(JobRepository jobRepository, EmployeeJobRunner employeeJobRunner, ObjectMapper objectMapper,
+                      JobProperties properties, ShardingProperties shardingProperties, Environment environment) {
+        this.jobRepository = jobRepository;
+        this.employeeJobRunner = employeeJobRunner;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.owner = properties.getInstanceId() != null ? properties.getInstanceId() : UUID.randomUUID().toString();
+        int poolSize = smallestPoolSize(shardingProperties, environment);
+        this.workerCount = Math.max(1, Math.min(properties.getConcurrency(), poolSize / 2));
+        if (workerCount < properties.getConcurrency()) {
+            log.warn("Running at most {} jobs at a time instead of {} to leave connections for requests",
+                    workerCount, properties.getConcurrency());
+        }
+        this.workers = Executors.newFixedThreadPool(workerCount, workerThreadFactory());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        int resumed = jobRepository.requeueOwnedBy(owner) + requeueExpired();
+        if (resumed > 0) {
+            log.info("Resuming {} interrupted jobs", resumed);
+        }
+    }
+
+    public JobResponse submit(JobRequest request) {
+        validate(request);
+        String parameters;
+        try {
+            parameters = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException("job parameters cannot be serialized");
+        }
+        Job job = jobRepository.save(new Job(request.getType(), parameters, Instant.now()));
+        dispatch();
+        return JobMapper.toResponse(job, Instant.now());
+    }
+
+    public JobResponse findById(Long id) {
+        return JobMapper.toResponse(find(id), Instant.now());
+    }
+
+    /**
+     * A queued job is cancelled at once; a running one stops before its next chunk, keeping the chunks it
+     * has committed.
+     */
+    public JobResponse cancel(Long id) {
+        find(id);
+        if (jobRepository.cancelQueued(id, Instant.now()) == 0) {
+            jobRepository.requestCancel(id, List.of(JobStatus.QUEUED, JobStatus.RUNNING));
+        }
+        return findById(id);
+    }
+
+    public Path findExport(Long id) {
+        Job job = find(id);
+        if (job.getType() != JobType.EMPLOYEE_EXPORT || job.getStatus() != JobStatus.SUCCEEDED) {
+            throw new InvalidRequestException("job " + id + " is not a finished export");
+        }
+        Path file = employeeJobRunner.exportFile(id);
+        if (!Files.exists(file)) {
+            throw new JobNotFoundException();
+        }
+        return file;
+    }
+
+    /**
+     * Starts queued jobs, oldest first, while workers are free. A job is claimed with a conditional
+     * status update that leases it to this instance, so it never runs twice.
+     */
+    @Scheduled(fixedDelayString = "${restapi.jobs.dispatch-interval:PT1S}")
+    public synchronized void dispatch() {
+        while (!stopping && running.size() < workerCount) {
+            List<Long> queued = jobRepository.findIdsByStatus(JobStatus.QUEUED, PageRequest.of(0, workerCount));
+            boolean started = false;
+            for (Long id : queued) {
+                if (running.size() >= workerCount) {
+                    break;
+                }
+                if (jobRepository.claim(id, owner, Instant.now()) == 1) {
+                    running.add(id);
+                    workers.execute(() -> run(id));
+                    started = true;
+                }
+            }
+            if (!started) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Renews the leases of the jobs running here and queues jobs whose lease expired elsewhere.
+     */
+    @Scheduled(fixedDelayString = "${restapi.jobs.heartbeat-interval:PT10S}")
+    public void heartbeat() {
+        if (stopping) {
+            return;
+        }
+        jobRepository.renewLeases(owner, Instant.now());
+        int requeued = requeueExpired();
+        if (requeued > 0) {
+            log.info("Queued {} jobs again whose lease expired", requeued);
+            dispatch();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        workers.shutdownNow();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private void run(Long id) {
+        try {
+            Job job = find(id);
+            employeeJobRunner.run(job, objectMapper.readValue(job.getParameters(), JobRequest.class));
+            finish(id, JobStatus.SUCCEEDED, null);
+        } catch (CancellationException e) {
+            if (stopping) {
+                log.info("Job {} stopped by shutdown, it resumes on the next start", id);
+            } else {
+                finish(id, JobStatus.CANCELLED, null);
+            }
+        } catch (Exception e) {
+            if (stopping) {
+                log.info("Job {} interrupted by shutdown, it resumes on the next start", id);
+            } else {
+                log.warn("Job {} failed", id, e);
+                finish(id, JobStatus.FAILED, truncate(String.valueOf(e.getMessage())));
+            }
+        } finally {
+            running.remove(id);
+        }
+        if (!stopping) {
+            dispatch();
+        }
+    }
+
+    private void finish(Long id, JobStatus status, String error) {
+        if (jobRepository.finish(id, owner, status, error, Instant.now()) == 0) {
+            log.warn("Job {} lost its lease and is continued by another instance", id);
+        }
+    }
+
+    private int requeueExpired() {
+        return jobRepository.requeueExpired(Instant.now().minus(properties.getLeaseTimeout()));
+    }
+
+    private Job find(Long id) {
+        return jobRepository.findById(id).orElseThrow(JobNotFoundException::new);
+    }
+
+    private void validate(JobRequest request) {
+        if (request.getType() == null) {
+            throw new InvalidRequestException("type is required");
+        }
+        switch (request.getType()) {
+            case EMPLOYEE_IMPORT:
+                if (request.getEmployees() == null || request.getEmployees().isEmpty()) {
+                    throw new InvalidRequestException("employees are required");
+                }
+                if (request.getEmployees().size() > properties.getMaxImportSize()) {
+                    throw new InvalidRequestException("at most " + properties.getMaxImportSize() + " employees per import");
+                }
+                break;
+            case EMPLOYEE_DELETE:
+                if (request.getCompanyId() == null && request.getGender() == null) {
+                    throw new InvalidRequestException("companyId or gender is required");
+                }
+                break;
+            case EMPLOYEE_ADJUSTMENT:
+                if (request.getSalaryRaisePercent() == null && request.getAgeIncrement() == null) {
+                    throw new InvalidRequestException("salaryRaisePercent or ageIncrement is required");
+                }
+                EmployeeService.validateSalaryRaisePercent(request.getSalaryRaisePercent());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static int smallestPoolSize(ShardingProperties shardingProperties, Environment environment) {
+        if (shardingProperties.isEnabled() && !shardingProperties.getShards().isEmpty()) {
+            return shardingProperties.getShards().stream()
+                    .mapToInt(ShardingProperties.Shard::getMaximumPoolSize)
+                    .min()
+                    .getAsInt();
+        }
+        return environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "job-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.config.CoalescingProperties;
+import com.afs.restapi.exception.RequestTimeoutException;
+import com.afs.restapi.jdbc.QueryDeadline;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution for identical concurrent reads: the first caller for a key runs the query,
+ * callers arriving while it is in flight wait for and share its result (or its exception).
+ * <p>
+ * The timeout bounds both roles: followers stop waiting once it passes, and the leader runs the query
+ * under a {@link QueryDeadline} of the same length, so the database cancels a statement that outlives it
+ * and everybody sees a {@link RequestTimeoutException}.
+ * <p>
+ * Reads inside a transaction are never coalesced: they see the transaction's own uncommitted writes, which
+ * must not be handed to other readers, and must not be answered with a result that lacks them.
+ */
+@Component
+public class RequestCoalescer {
+    private final CoalescingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(CoalescingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String operation, Object key, Supplier<T> query) {
+        return execute(operation, key, properties.timeoutFor(operation), query);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Duration timeout, Supplier<T> query) {
+        if (!properties.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return lead(timeout, query);
+        }
+        Stats operationStats = stats.computeIfAbsent(operation, this::register);
+        String flightKey = operation + ':' + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            operationStats.followers.increment();
+            return (T) await(existing, timeout);
+        }
+        operationStats.leaders.increment();
+        try {
+            T result = lead(timeout, query);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error exception) {
+            flight.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private static <T> T lead(Duration timeout, Supplier<T> query) {
+        try {
+            return QueryDeadline.within(timeout, query);
+        } catch (QueryTimeoutException | javax.persistence.QueryTimeoutException exception) {
+            throw new RequestTimeoutException();
+        }
+    }
+
+    private Object await(CompletableFuture<Object> flight, Duration timeout) {
+        try {
+            return flight.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } catch (TimeoutException exception) {
+            throw new RequestTimeoutException();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RequestTimeoutException();
+        }
+    }
+
+    private Stats register(String operation) {
+        Stats operationStats = new Stats();
+        FunctionCounter.builder("restapi.coalescing.calls", operationStats.leaders, LongAdder::sum)
+                .description("Reads that executed the query")
+                .tag("operation", operation).tag("role", "leader")
+                .register(meterRegistry);
+        FunctionCounter.builder("restapi.coalescing.calls", operationStats.followers, LongAdder::sum)
+                .description("Reads that joined an in-flight query")
+                .tag("operation", operation).tag("role", "follower")
+                .register(meterRegistry);
+        Gauge.builder("restapi.coalescing.ratio", operationStats, Stats::ratio)
+                .description("Share of reads served by joining an in-flight query")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        return operationStats;
+    }
+
+    private static class Stats {
+        private final LongAdder leaders = new LongAdder();
+        private final LongAdder followers = new LongAdder();
+
+        private double ratio() {
+            long joined = followers.sum();
+            long total = joined + leaders.sum();
+            return total == 0 ? 0 : (double) joined / total;
+        }
+    }
+}
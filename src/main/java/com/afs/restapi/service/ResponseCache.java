@@ -0,0 +1,308 @@
+package com.afs.restapi.service;
+
+import com.afs.restapi.config.ResponseCacheProperties;
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeEvent;
+import com.afs.restapi.entity.ChangeType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized JSON of single employees and companies and of their first list pages, keyed by resource.
+ * <p>
+ * Every change bumps version tokens from one logical clock: the resource's own token (ids share a fixed
+ * number of striped tokens, so the version state stays bounded) and the collection tokens its lists
+ * depend on. An entry records the clock before its response was computed and is served only while none
+ * of its tokens has moved past that, so a response computed from data read before a commit is never
+ * served after the commit's invalidation. Company responses carry employee counts, so creating or deleting
+ * an employee invalidates them too.
+ * <p>
+ * Writes on this node invalidate right after they commit; writes on other nodes invalidate once the
+ * change log poller reads their events, which bounds how stale a cached response can get to the
+ * change feed poll interval, or the gap timeout while an earlier sequence number is outstanding.
+ * <p>
+ * Multi-gets share the single resource entries through {@link #getValue} and {@link #putValue}, so ids
+ * fetched one at a time are not queried again by a multi-get, and the other way round. Like the filter in a
+ * transactional batch, they leave the cache alone inside a transaction, which has to see its own writes
+ * and must not cache rows it may still roll back.
+ */
+@Component
+public class ResponseCache implements ChangeEventListener {
+    private final ResponseCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLongArray employeeVersions;
+    private final AtomicLongArray companyVersions;
+    private final AtomicLong anyEmployeeVersion = new AtomicLong();
+    private final AtomicLong employeeMembershipVersion = new AtomicLong();
+    private final AtomicLong bulkEmployeeVersion = new AtomicLong();
+    private final AtomicLong anyCompanyVersion = new AtomicLong();
+
+    public ResponseCache(ResponseCacheProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.employeeVersions = new AtomicLongArray(properties.getVersionStripes());
+        this.companyVersions = new AtomicLongArray(properties.getVersionStripes());
+        Gauge.builder("restapi.response-cache.entries", entries, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("restapi.response-cache.bytes", cachedBytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * The clock to pass to {@link #put} for a response that is computed after this call.
+     */
+    public long currentStamp() {
+        return clock.get();
+    }
+
+    /**
+     * The cached response, or {@code null} when there is none or a change has made it stale.
+     */
+    public CachedResponse get(Key key) {
+        CachedResponse cached = entries.get(key.value);
+        if (cached == null) {
+            return null;
+        }
+        if (latestChange(key) > cached.stamp) {
+            remove(key.value, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(Key key, long stamp, byte[] body, String contentType) {
+        if (body.length > properties.getMaxBytes() / 16 || latestChange(key) > stamp) {
+            return;
+        }
+        CachedResponse cached = new CachedResponse(body, contentType, stamp, properties.getGzipMinBytes());
+        CachedResponse previous = entries.put(key.value, cached);
+        cachedBytes.addAndGet(body.length - (previous == null ? 0 : previous.body.length));
+        evictOverCapacity();
+    }
+
+    /**
+     * The cached response read back as {@code type}, or {@code null} when the cache is disabled or has no
+     * fresh entry.
+     */
+    public <T> T getValue(Key key, Class<T> type) {
+        if (!isUsableOutsideTransaction()) {
+            return null;
+        }
+        CachedResponse cached = get(key);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(cached.body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cached response " + key, e);
+        }
+    }
+
+    /**
+     * Stores {@code value} as the JSON body its single resource endpoint would have returned.
+     */
+    public void putValue(Key key, long stamp, Object value) {
+        if (!isUsableOutsideTransaction()) {
+            return;
+        }
+        try {
+            put(key, stamp, objectMapper.writeValueAsBytes(value), MediaType.APPLICATION_JSON_VALUE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot cache response " + key, e);
+        }
+    }
+
+    private boolean isUsableOutsideTransaction() {
+        return isEnabled() && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Bumps the tokens touched by a committed change. A change without an entity id stands for a bulk
+     * statement and invalidates every response of that entity type.
+     */
+    public void invalidate(ChangeEntityType entityType, Long entityId, ChangeType changeType) {
+        long version = clock.incrementAndGet();
+        if (entityType == ChangeEntityType.EMPLOYEE) {
+            anyEmployeeVersion.set(version);
+            if (entityId == null) {
+                bulkEmployeeVersion.set(version);
+            } else {
+                employeeVersions.set(stripe(entityId), version);
+            }
+            if (entityId == null || changeType != ChangeType.UPDATED) {
+                employeeMembershipVersion.set(version);
+            }
+        } else {
+            anyCompanyVersion.set(version);
+            if (entityId != null) {
+                companyVersions.set(stripe(entityId), version);
+            }
+        }
+    }
+
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        events.forEach(event -> invalidate(event.getEntityType(), event.getEntityId(), event.getChangeType()));
+    }
+
+    public void clear() {
+        entries.clear();
+        cachedBytes.set(0);
+    }
+
+    private long latestChange(Key key) {
+        switch (key.kind) {
+            case EMPLOYEE:
+                return Math.max(employeeVersions.get(stripe(key.id)), bulkEmployeeVersion.get());
+            case EMPLOYEE_PAGE:
+                return anyEmployeeVersion.get();
+            case COMPANY:
+                return Math.max(companyVersions.get(stripe(key.id)),
+                        key.withEmployees ? anyEmployeeVersion.get() : employeeMembershipVersion.get());
+            case COMPANY_PAGE:
+                return Math.max(anyCompanyVersion.get(),
+                        key.withEmployees ? anyEmployeeVersion.get() : employeeMembershipVersion.get());
+            default:
+                throw new IllegalStateException("Unknown key kind " + key.kind);
+        }
+    }
+
+    private int stripe(long id) {
+        return (int) Math.floorMod(id, (long) employeeVersions.length());
+    }
+
+    /**
+     * Evicts in the map's iteration order, which is unrelated to use, until the cache fits again; hot
+     * resources are simply cached again on their next request.
+     */
+    private void evictOverCapacity() {
+        Iterator<Map.Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > properties.getMaxEntries() || cachedBytes.get() > properties.getMaxBytes())
+                && iterator.hasNext()) {
+            Map.Entry<String, CachedResponse> entry = iterator.next();
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void remove(String key, CachedResponse cached) {
+        if (entries.remove(key, cached)) {
+            cachedBytes.addAndGet(-cached.body.length);
+        }
+    }
+
+    public enum Kind {
+        EMPLOYEE,
+        EMPLOYEE_PAGE,
+        COMPANY,
+        COMPANY_PAGE
+    }
+
+    public static final class Key {
+        private final Kind kind;
+        private final long id;
+        private final boolean withEmployees;
+        private final String value;
+
+        private Key(Kind kind, long id, boolean withEmployees, String value) {
+            this.kind = kind;
+            this.id = id;
+            this.withEmployees = withEmployees;
+            this.value = value;
+        }
+
+        public static Key employee(long id) {
+            return new Key(Kind.EMPLOYEE, id, false, "employee:" + id);
+        }
+
+        public static Key company(long id, boolean withEmployees) {
+            return new Key(Kind.COMPANY, id, withEmployees, "company:" + id + (withEmployees ? "+employees" : ""));
+        }
+
+        public static Key employeePage(int pageNumber, int pageSize) {
+            return new Key(Kind.EMPLOYEE_PAGE, 0, false, "employees:" + pageNumber + ":" + pageSize);
+        }
+
+        public static Key companyPage(int pageNumber, int pageSize, boolean withEmployees) {
+            return new Key(Kind.COMPANY_PAGE, 0, withEmployees,
+                    "companies:" + pageNumber + ":" + pageSize + (withEmployees ? "+employees" : ""));
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    /**
+     * A response body as written to the wire. The gzipped form is computed on first request and kept.
+     */
+    public static final class CachedResponse {
+        private final byte[] body;
+        private final String contentType;
+        private final long stamp;
+        private final int gzipMinBytes;
+        private volatile byte[] gzipped;
+
+        private CachedResponse(byte[] body, String contentType, long stamp, int gzipMinBytes) {
+            this.body = body;
+            this.contentType = contentType;
+            this.stamp = stamp;
+            this.gzipMinBytes = gzipMinBytes;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public boolean isCompressible() {
+            return body.length >= gzipMinBytes;
+        }
+
+        public byte[] getGzipped() {
+            byte[] compressed = gzipped;
+            if (compressed == null) {
+                compressed = gzip(body);
+                gzipped = compressed;
+            }
+            return compressed;
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.afs.restapi.service.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class BatchItemRequest {
+    private String id;
+    private String method;
+    private String path;
+    private JsonNode body;
+
+    public BatchItemRequest() {
+    }
+
+    public BatchItemRequest(String id, String method, String path, JsonNode body) {
+        this.id = id;
+        this.method = method;
+        this.path = path;
+        this.body = body;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+}
@@ -0,0 +1,43 @@
+package com.afs.restapi.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+public class BatchItemResponse {
+    private String id;
+    private int status;
+    @JsonRawValue
+    private String body;
+
+    public BatchItemResponse() {
+    }
+
+    public BatchItemResponse(String id, int status, String body) {
+        this.id = id;
+        this.status = status;
+        this.body = body;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+}
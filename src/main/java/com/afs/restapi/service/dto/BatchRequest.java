@@ -0,0 +1,32 @@
+package com.afs.restapi.service.dto;
+
+import java.util.List;
+
+public class BatchRequest {
+    private boolean transactional;
+    private List<BatchItemRequest> requests;
+
+    public BatchRequest() {
+    }
+
+    public BatchRequest(boolean transactional, List<BatchItemRequest> requests) {
+        this.transactional = transactional;
+        this.requests = requests;
+    }
+
+    public boolean isTransactional() {
+        return transactional;
+    }
+
+    public void setTransactional(boolean transactional) {
+        this.transactional = transactional;
+    }
+
+    public List<BatchItemRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<BatchItemRequest> requests) {
+        this.requests = requests;
+    }
+}
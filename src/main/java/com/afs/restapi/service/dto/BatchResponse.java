@@ -0,0 +1,32 @@
+package com.afs.restapi.service.dto;
+
+import java.util.List;
+
+public class BatchResponse {
+    private List<BatchItemResponse> responses;
+    private boolean rolledBack;
+
+    public BatchResponse() {
+    }
+
+    public BatchResponse(List<BatchItemResponse> responses, boolean rolledBack) {
+        this.responses = responses;
+        this.rolledBack = rolledBack;
+    }
+
+    public List<BatchItemResponse> getResponses() {
+        return responses;
+    }
+
+    public void setResponses(List<BatchItemResponse> responses) {
+        this.responses = responses;
+    }
+
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    public void setRolledBack(boolean rolledBack) {
+        this.rolledBack = rolledBack;
+    }
+}
@@ -0,0 +1,57 @@
+package com.afs.restapi.service.dto;
+
+import com.afs.restapi.entity.ChangeEntityType;
+import com.afs.restapi.entity.ChangeType;
+
+import java.time.Instant;
+
+public class ChangeEventResponse {
+    private Long seq;
+    private ChangeEntityType entityType;
+    private Long entityId;
+    private ChangeType changeType;
+    private Instant createdAt;
+
+    public ChangeEventResponse() {
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public ChangeEntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(ChangeEntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(ChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,5 +1,9 @@
 package com.afs.restapi.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
 public class CompanyResponse {
 
     private Long id;
@@ -7,6 +11,8 @@ public class CompanyResponse {
     private String name;
 
     private Integer employeesCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<EmployeeResponse> employees;
 
     public CompanyResponse() {
     }
@@ -34,4 +40,12 @@ public class CompanyResponse {
     public void setEmployeesCount(Integer employeesCount) {
         this.employeesCount = employeesCount;
     }
+
+    public List<EmployeeResponse> getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(List<EmployeeResponse> employees) {
+        this.employees = employees;
+    }
 }
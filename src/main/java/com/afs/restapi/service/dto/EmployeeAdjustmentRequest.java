@@ -0,0 +1,50 @@
+package com.afs.restapi.service.dto;
+
+public class EmployeeAdjustmentRequest {
+    private Long companyId;
+    private String gender;
+    private Integer salaryRaisePercent;
+    private Integer ageIncrement;
+
+    public EmployeeAdjustmentRequest() {
+    }
+
+    public EmployeeAdjustmentRequest(Long companyId, String gender, Integer salaryRaisePercent, Integer ageIncrement) {
+        this.companyId = companyId;
+        this.gender = gender;
+        this.salaryRaisePercent = salaryRaisePercent;
+        this.ageIncrement = ageIncrement;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public void setCompanyId(Long companyId) {
+        this.companyId = companyId;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    public Integer getSalaryRaisePercent() {
+        return salaryRaisePercent;
+    }
+
+    public void setSalaryRaisePercent(Integer salaryRaisePercent) {
+        this.salaryRaisePercent = salaryRaisePercent;
+    }
+
+    public Integer getAgeIncrement() {
+        return ageIncrement;
+    }
+
+    public void setAgeIncrement(Integer ageIncrement) {
+        this.ageIncrement = ageIncrement;
+    }
+}
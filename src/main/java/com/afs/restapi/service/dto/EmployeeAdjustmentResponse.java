@@ -0,0 +1,20 @@
+package com.afs.restapi.service.dto;
+
+public class EmployeeAdjustmentResponse {
+    private Integer affectedCount;
+
+    public EmployeeAdjustmentResponse() {
+    }
+
+    public EmployeeAdjustmentResponse(Integer affectedCount) {
+        this.affectedCount = affectedCount;
+    }
+
+    public Integer getAffectedCount() {
+        return affectedCount;
+    }
+
+    public void setAffectedCount(Integer affectedCount) {
+        this.affectedCount = affectedCount;
+    }
+}
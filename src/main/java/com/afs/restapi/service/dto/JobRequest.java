@@ -0,0 +1,68 @@
+package com.afs.restapi.service.dto;
+
+import com.afs.restapi.entity.JobType;
+import java.util.List;
+
+/**
+ * {@code companyId} and {@code gender} filter export, delete and adjustment jobs; {@code employees} are the
+ * rows of an import job.
+ */
+public class JobRequest {
+    private JobType type;
+    private Long companyId;
+    private String gender;
+    private Integer salaryRaisePercent;
+    private Integer ageIncrement;
+    private List<EmployeeRequest> employees;
+
+    public JobRequest() {
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public void setType(JobType type) {
+        this.type = type;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public void setCompanyId(Long companyId) {
+        this.companyId = companyId;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    public Integer getSalaryRaisePercent() {
+        return salaryRaisePercent;
+    }
+
+    public void setSalaryRaisePercent(Integer salaryRaisePercent) {
+        this.salaryRaisePercent = salaryRaisePercent;
+    }
+
+    public Integer getAgeIncrement() {
+        return ageIncrement;
+    }
+
+    public void setAgeIncrement(Integer ageIncrement) {
+        this.ageIncrement = ageIncrement;
+    }
+
+    public List<EmployeeRequest> getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(List<EmployeeRequest> employees) {
+        this.employees = employees;
+    }
+}
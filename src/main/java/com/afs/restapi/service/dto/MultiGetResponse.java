@@ -0,0 +1,32 @@
+package com.afs.restapi.service.dto;
+
+import java.util.List;
+
+public class MultiGetResponse<T> {
+    private List<T> items;
+    private List<Long> missingIds;
+
+    public MultiGetResponse() {
+    }
+
+    public MultiGetResponse(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
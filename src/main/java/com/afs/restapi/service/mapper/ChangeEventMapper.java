@@ -0,0 +1,16 @@
+package com.afs.restapi.service.mapper;
+
+import com.afs.restapi.entity.ChangeEvent;
+import com.afs.restapi.service.dto.ChangeEventResponse;
+import org.springframework.beans.BeanUtils;
+
+public class ChangeEventMapper {
+
+    private ChangeEventMapper(){}
+
+    public static ChangeEventResponse toResponse(ChangeEvent changeEvent) {
+        ChangeEventResponse changeEventResponse = new ChangeEventResponse();
+        BeanUtils.copyProperties(changeEvent, changeEventResponse);
+        return changeEventResponse;
+    }
+}
@@ -1,10 +1,14 @@
 package com.afs.restapi.service.mapper;
 
 import com.afs.restapi.entity.Company;
+import com.afs.restapi.entity.Employee;
 import com.afs.restapi.service.dto.CompanyRequest;
 import com.afs.restapi.service.dto.CompanyResponse;
 import org.springframework.beans.BeanUtils;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class CompanyMapper {
 
     private CompanyMapper(){}
@@ -15,11 +19,18 @@ public class CompanyMapper {
         return company;
     }
 
-    public static CompanyResponse toResponse(Company company) {
+    public static CompanyResponse toResponse(Company company, Integer employeesCount) {
         CompanyResponse companyResponse = new CompanyResponse();
-        BeanUtils.copyProperties(company, companyResponse);
-        var employees = company.getEmployees();
-        companyResponse.setEmployeesCount((employees == null) ? 0 : employees.size());
+        BeanUtils.copyProperties(company, companyResponse, "employees");
+        companyResponse.setEmployeesCount(employeesCount);
+        return companyResponse;
+    }
+
+    public static CompanyResponse toResponse(Company company, List<Employee> employees) {
+        CompanyResponse companyResponse = toResponse(company, employees.size());
+        companyResponse.setEmployees(employees.stream()
+                .map(EmployeeMapper::toResponse)
+                .collect(Collectors.toList()));
         return companyResponse;
     }
 }
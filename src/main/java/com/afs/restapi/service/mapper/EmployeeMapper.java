@@ -12,6 +12,9 @@ public class EmployeeMapper {
     public static Employee toEntity(EmployeeRequest employeeRequest) {
         Employee employee = new Employee();
         BeanUtils.copyProperties(employeeRequest, employee);
+        if (employeeRequest.getCompanyId() != null) {
+            employee.setCompanyId(employeeRequest.getCompanyId().longValue());
+        }
         return employee;
     }
 
@@ -0,0 +1,32 @@
+package com.afs.restapi.service.mapper;
+
+import com.afs.restapi.entity.Job;
+import com.afs.restapi.service.dto.JobResponse;
+import org.springframework.beans.BeanUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class JobMapper {
+
+    private JobMapper(){}
+
+    /**
+     * Throughput is measured from the first start to the job's end, or to {@code now} while it is still running.
+     */
+    public static JobResponse toResponse(Job job, Instant now) {
+        JobResponse jobResponse = new JobResponse();
+        BeanUtils.copyProperties(job, jobResponse);
+        if (job.getTotal() != null && job.getTotal() > 0) {
+            jobResponse.setPercentComplete(Math.min(100.0, job.getProcessed() * 100.0 / job.getTotal()));
+        } else if (job.getStatus().isFinished()) {
+            jobResponse.setPercentComplete(100.0);
+        }
+        if (job.getStartedAt() != null) {
+            Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : now;
+            long millis = Math.max(1, Duration.between(job.getStartedAt(), end).toMillis());
+            jobResponse.setItemsPerSecond(job.getProcessed() * 1000.0 / millis);
+        }
+        return jobResponse;
+    }
+}
@@ -0,0 +1,22 @@
+package com.afs.restapi.sharding;
+
+/**
+ * The shard the current thread's next connection should come from; {@code null} means the default shard.
+ */
+public class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext(){}
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.afs.restapi.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * The physical datasource of every shard, indexed by shard number. Shard 0 is also the default
+ * datasource for tables that are not sharded.
+ */
+public class ShardDataSources implements DisposableBean {
+    private final List<HikariDataSource> dataSources;
+
+    public ShardDataSources(List<HikariDataSource> dataSources) {
+        this.dataSources = dataSources;
+    }
+
+    public DataSource get(int shard) {
+        return dataSources.get(shard);
+    }
+
+    public int size() {
+        return dataSources.size();
+    }
+
+    @Override
+    public void destroy() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,247 @@
+package com.afs.restapi.sharding;
+
+import com.afs.restapi.config.ShardingProperties;
+import com.afs.restapi.exception.InvalidRequestException;
+import com.afs.restapi.jdbc.JdbcContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard owns a row and runs data access against it.
+ * <p>
+ * Every shard hands out ids from its own range of {@code idRangeSize} ids, so the shard of an employee or a
+ * company follows from its id. A company's employees are created on the company's shard, which keeps a
+ * company and its employees in the same database; {@code company-shards} pins companies whose id lies
+ * outside the range of the shard holding them. With sharding disabled there is exactly one shard and every
+ * call runs in place.
+ */
+@Component
+public class ShardRouter {
+    private static final Object TRANSACTION_SHARD_KEY = new Object();
+
+    private final ShardingProperties properties;
+    private final int shardCount;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final ExecutorService fanOutExecutor;
+
+    public ShardRouter(ShardingProperties properties) {
+        this.properties = properties;
+        this.shardCount = properties.isEnabled() ? Math.max(1, properties.getShards().size()) : 1;
+        this.fanOutExecutor = shardCount > 1
+                ? Executors.newFixedThreadPool(properties.getFanOutThreads(), fanOutThreadFactory())
+                : null;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardForId(Long id) {
+        if (id == null || id < 1) {
+            return 0;
+        }
+        return (int) Math.min(shardCount - 1, (id - 1) / properties.getIdRangeSize());
+    }
+
+    /**
+     * The first id handed out by {@code shard}, so {@code firstIdOf(shard) - 1} is the position before any of its rows.
+     */
+    public long firstIdOf(int shard) {
+        return shard * properties.getIdRangeSize() + 1;
+    }
+
+    public int shardForCompany(Long companyId) {
+        Integer pinned = companyId == null ? null : properties.getCompanyShards().get(companyId);
+        if (pinned != null && pinned >= 0 && pinned < shardCount) {
+            return pinned;
+        }
+        return shardForId(companyId);
+    }
+
+    /**
+     * Places new companies and company-less employees round robin.
+     */
+    public int shardForNewRow() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+
+    public <K> Map<Integer, List<K>> groupByShard(Collection<K> keys, Function<K, Integer> shardOf) {
+        Map<Integer, List<K>> grouped = new LinkedHashMap<>();
+        for (K key : keys) {
+            grouped.computeIfAbsent(shardOf.apply(key), shard -> new ArrayList<>()).add(key);
+        }
+        return grouped;
+    }
+
+    /**
+     * Runs the action with connections routed to {@code shard}. Inside a transaction the first shard used
+     * is bound to it, because the transaction's connection is taken from that shard; touching a second
+     * shard in the same transaction fails instead of silently writing to the wrong database. The binding
+     * is lifted while the transaction is suspended, like its connection.
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        if (!isSharded()) {
+            return action.get();
+        }
+        bindToTransaction(shard);
+        Integer previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public void runOnShard(int shard, Runnable action) {
+        onShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action on each shard in parallel and returns the results in shard order. The statements of
+     * every shard count into the caller's SQL recordings and are bound by its query deadline.
+     */
+    public <T> List<T> onEveryShard(IntFunction<T> action) {
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(shard);
+        }
+        return onShards(shards, action);
+    }
+
+    public <T> List<T> onShards(Collection<Integer> shards, IntFunction<T> action) {
+        List<T> results = new ArrayList<>();
+        if (!isSharded() || shards.size() == 1) {
+            shards.forEach(shard -> results.add(onShard(shard, () -> action.apply(shard))));
+            return results;
+        }
+        JdbcContext context = JdbcContext.capture();
+        List<Future<T>> futures = new ArrayList<>();
+        for (Integer shard : shards) {
+            futures.add(fanOutExecutor.submit(() -> context.run(() -> onShard(shard, () -> action.apply(shard)))));
+        }
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Concatenates per-shard lists; when several shards answered the rows are ordered by {@code order}
+     * so the merged result does not depend on which shard replied first.
+     */
+    public <T> List<T> mergeAll(IntFunction<List<T>> query, Comparator<T> order) {
+        List<T> merged = new ArrayList<>();
+        onEveryShard(query).forEach(merged::addAll);
+        if (isSharded()) {
+            merged.sort(order);
+        }
+        return merged;
+    }
+
+    /**
+     * The number of first rows every shard has to return for a scatter-gather page starting at
+     * {@code offset}; pages reaching deeper than {@code max-page-depth} rows are refused.
+     */
+    public int firstRowsForPage(long offset, int limit) {
+        if (offset + limit > properties.getMaxPageDepth()) {
+            throw new InvalidRequestException("pages cannot reach past row " + properties.getMaxPageDepth());
+        }
+        return (int) (offset + limit);
+    }
+
+    /**
+     * Scatter-gather pagination: each shard returns its first {@code offset + limit} rows in {@code order},
+     * and the page is cut from the merged stream.
+     */
+    public <T> List<T> mergePage(int offset, int limit, IntFunction<List<T>> firstRowsOfShard, Comparator<T> order) {
+        List<T> merged = mergeAll(firstRowsOfShard, order);
+        if (offset >= merged.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(merged.subList(offset, Math.min(merged.size(), offset + limit)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+    }
+
+    private void bindToTransaction(int shard) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        Integer bound = (Integer) TransactionSynchronizationManager.getResource(TRANSACTION_SHARD_KEY);
+        if (bound == null) {
+            TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD_KEY, shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD_KEY);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD_KEY, shard);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD_KEY);
+                }
+            });
+        } else if (bound != shard) {
+            throw new IllegalStateException("Transaction is bound to shard " + bound + ", cannot use shard " + shard);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ThreadFactory fanOutThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
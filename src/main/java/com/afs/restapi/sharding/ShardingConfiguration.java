@@ -0,0 +1,112 @@
+package com.afs.restapi.sharding;
+
+import com.afs.restapi.config.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single datasource with one routed per shard when {@code restapi.sharding.enabled} is set.
+ * <p>
+ * The routing datasource sits behind a {@link LazyConnectionDataSourceProxy}, so a transaction only takes
+ * its physical connection at the first statement, after {@link ShardRouter#onShard} picked the shard.
+ * Shard 0 runs the regular migrations and keeps the unsharded tables; the other shards get the sharded
+ * tables from {@code db/shard-migration} with their identity columns moved to the shard's id range.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "restapi.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfiguration {
+    private static final String[] SHARDED_TABLES = {"company", "employee", "change_event"};
+
+    @Bean
+    public ShardDataSources shardDataSources(ShardingProperties properties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("restapi.sharding.shards must list at least one shard");
+        }
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (int shard = 0; shard < properties.getShards().size(); shard++) {
+            ShardingProperties.Shard config = properties.getShards().get(shard);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(config.getUrl())
+                    .username(config.getUsername())
+                    .password(config.getPassword())
+                    .driverClassName(config.getDriverClassName())
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setMaximumPoolSize(config.getMaximumPoolSize());
+            dataSources.add(dataSource);
+        }
+        return new ShardDataSources(dataSources);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            targets.put(shard, shardDataSources.get(shard));
+        }
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(shardDataSources.get(0));
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardDataSources shardDataSources,
+                                                                  ShardingProperties properties) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < shardDataSources.size(); shard++) {
+                DataSource dataSource = shardDataSources.get(shard);
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource)
+                        .locations("classpath:db/shard-migration")
+                        .load()
+                        .migrate();
+                moveIdentitiesToShardRange(dataSource, shard * properties.getIdRangeSize() + 1);
+            }
+        };
+    }
+
+    private static void moveIdentitiesToShardRange(DataSource dataSource, long firstId) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        boolean mysql = "MySQL".equalsIgnoreCase(databaseProductName(dataSource));
+        for (String table : SHARDED_TABLES) {
+            String idColumn = "change_event".equals(table) ? "seq" : "id";
+            Long maxId = jdbcTemplate.queryForObject("select max(" + idColumn + ") from " + table, Long.class);
+            if (maxId != null && maxId >= firstId) {
+                continue;
+            }
+            jdbcTemplate.execute(mysql
+                    ? "alter table " + table + " auto_increment = " + firstId
+                    : "alter table " + table + " alter column " + idColumn + " restart with " + firstId);
+        }
+    }
+
+    private static String databaseProductName(DataSource dataSource) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> metaData.getDatabaseProductName());
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot read the database product of a shard", e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+create table if not exists change_event (
+    seq         bigint auto_increment primary key,
+    entity_type varchar(32)  not null,
+    entity_id   bigint       null,
+    change_type varchar(32)  not null,
+    created_at  timestamp(3) not null
+);
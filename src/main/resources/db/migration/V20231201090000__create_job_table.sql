@@ -0,0 +1,18 @@
+create table if not exists job (
+    id               bigint auto_increment primary key,
+    type             varchar(32)   not null,
+    status           varchar(32)   not null,
+    parameters       longtext      not null,
+    total            bigint        null,
+    processed        bigint        not null,
+    cursor_shard     int           not null,
+    cursor_id        bigint        not null,
+    result_bytes     bigint        not null,
+    cancel_requested boolean       not null,
+    error            varchar(1000) null,
+    created_at       timestamp(3)  not null,
+    started_at       timestamp(3)  null,
+    updated_at       timestamp(3)  null,
+    finished_at      timestamp(3)  null
+);
+create index job_status_idx on job (status, id);
@@ -0,0 +1 @@
+alter table job add column owner varchar(64) null;
@@ -0,0 +1,20 @@
+create table if not exists company (
+    id   bigint auto_increment primary key,
+    name varchar(255) null
+);
+create table if not exists employee (
+    id         bigint auto_increment primary key,
+    age        int          null,
+    company_id bigint       null,
+    gender     varchar(255) null,
+    name       varchar(255) null,
+    salary     int          null,
+    foreign key (company_id) references company (id)
+);
+create table if not exists change_event (
+    seq         bigint auto_increment primary key,
+    entity_type varchar(32)  not null,
+    entity_id   bigint       null,
+    change_type varchar(32)  not null,
+    created_at  timestamp(3) not null
+);
@@ -0,0 +1,5 @@
+create table if not exists job_checkpoint (
+    job_id    bigint primary key,
+    cursor_id bigint not null,
+    processed bigint not null
+);
@@ -0,0 +1,153 @@
+package com.afs.restapi;
+
+import com.afs.restapi.config.AdaptiveConcurrencyLimiter;
+import com.afs.restapi.config.AdmissionControlProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs closed-loop clients against a simulated database on a virtual clock, so the results do not
+ * depend on the speed or load of the machine running the tests.
+ */
+class AdaptiveConcurrencyLimiterTest {
+    private static final int DATABASE_CAPACITY = 4;
+    private static final long SERVICE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int CLIENTS = 100;
+    private static final long RUN_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void should_keep_p99_bounded_and_shed_load_when_overloaded() {
+        LoadResult unlimited = new SimulatedDatabase(SERVICE_NANOS).drive(null, RUN_NANOS);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new AdmissionControlProperties.Limit(20, 1, 200));
+        LoadResult limited = new SimulatedDatabase(SERVICE_NANOS).drive(limiter, RUN_NANOS);
+
+        assertEquals(0, unlimited.rejected);
+        assertTrue(limited.rejected > 0);
+        assertTrue(limited.p99Nanos() * 2 < unlimited.p99Nanos());
+        assertTrue(limiter.getLimit() < CLIENTS / 2);
+    }
+
+    @Test
+    void should_not_ratchet_the_limit_up_when_no_load_latency_is_relearned() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limitRelearningEvery(20));
+
+        new SimulatedDatabase(SERVICE_NANOS).drive(limiter, RUN_NANOS * 5);
+
+        assertTrue(limiter.getLimit() < CLIENTS / 2, () -> "limit grew to " + limiter.getLimit());
+    }
+
+    @Test
+    void should_relearn_no_load_latency_when_database_gets_slower() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limitRelearningEvery(20));
+        new SimulatedDatabase(SERVICE_NANOS).drive(limiter, RUN_NANOS);
+        int limitAtNormalSpeed = limiter.getLimit();
+
+        new SimulatedDatabase(SERVICE_NANOS * 3).drive(limiter, RUN_NANOS * 3);
+
+        assertTrue(limiter.getLimit() * 2 > limitAtNormalSpeed,
+                () -> "limit " + limiter.getLimit() + " stayed pinned below " + limitAtNormalSpeed);
+    }
+
+    @Test
+    void should_not_keep_a_single_fast_outlier_as_no_load_latency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limitRelearningEvery(20));
+        new SimulatedDatabase(SERVICE_NANOS).drive(limiter, RUN_NANOS);
+        int limitBeforeOutlier = limiter.getLimit();
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SERVICE_NANOS / 100);
+        new SimulatedDatabase(SERVICE_NANOS).drive(limiter, RUN_NANOS);
+
+        assertTrue(limiter.getLimit() * 2 > limitBeforeOutlier,
+                () -> "limit " + limiter.getLimit() + " stayed pinned below " + limitBeforeOutlier);
+    }
+
+    private static AdmissionControlProperties.Limit limitRelearningEvery(int windows) {
+        AdmissionControlProperties.Limit settings = new AdmissionControlProperties.Limit(20, 1, 200);
+        settings.setMinRttResetWindows(windows);
+        return settings;
+    }
+
+    /**
+     * A database serving {@link #DATABASE_CAPACITY} queries at a time in arrival order, so every request
+     * above that waits in line and latency grows with concurrency. Clients send their next request as
+     * soon as the previous one completes and back off for one service time after a rejection.
+     */
+    private static class SimulatedDatabase {
+        private final long serviceNanos;
+        private final long[] connectionFreeAt = new long[DATABASE_CAPACITY];
+        private final PriorityQueue<Event> events = new PriorityQueue<>(
+                Comparator.comparingLong((Event event) -> event.at).thenComparing(event -> !event.completion));
+
+        private SimulatedDatabase(long serviceNanos) {
+            this.serviceNanos = serviceNanos;
+        }
+
+        private LoadResult drive(AdaptiveConcurrencyLimiter limiter, long runNanos) {
+            LoadResult result = new LoadResult();
+            for (int client = 0; client < CLIENTS; client++) {
+                events.add(new Event(0, false, 0));
+            }
+            while (!events.isEmpty()) {
+                Event event = events.poll();
+                if (event.completion) {
+                    if (limiter != null) {
+                        limiter.release(event.latency);
+                    }
+                    result.latencies.add(event.latency);
+                    if (event.at < runNanos) {
+                        events.add(new Event(event.at, false, 0));
+                    }
+                } else if (limiter != null && !limiter.tryAcquire()) {
+                    result.rejected++;
+                    if (event.at + serviceNanos < runNanos) {
+                        events.add(new Event(event.at + serviceNanos, false, 0));
+                    }
+                } else {
+                    int connection = 0;
+                    for (int i = 1; i < connectionFreeAt.length; i++) {
+                        if (connectionFreeAt[i] < connectionFreeAt[connection]) {
+                            connection = i;
+                        }
+                    }
+                    long finishedAt = Math.max(event.at, connectionFreeAt[connection]) + serviceNanos;
+                    connectionFreeAt[connection] = finishedAt;
+                    events.add(new Event(finishedAt, true, finishedAt - event.at));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class Event {
+        private final long at;
+        private final boolean completion;
+        private final long latency;
+
+        private Event(long at, boolean completion, long latency) {
+            this.at = at;
+            this.completion = completion;
+            this.latency = latency;
+        }
+    }
+
+    private static class LoadResult {
+        private final List<Long> latencies = new ArrayList<>();
+        private long rejected;
+
+        private long p99Nanos() {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.get((int) (sorted.size() * 0.99));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.afs.restapi;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * The expensive endpoint class is closed (limit 0) so its requests are always rejected, while cheap
+ * requests keep their normal limit.
+ */
+@SpringBootTest(properties = {
+        "restapi.admission-control.expensive.initial-limit=0",
+        "restapi.admission-control.expensive.min-limit=0",
+        "restapi.admission-control.expensive.max-limit=0"
+})
+@AutoConfigureMockMvc
+class AdmissionControlApiTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void should_reject_expensive_request_with_503_and_retry_after() throws Exception {
+        double expensiveBefore = rejected("expensive");
+        double cheapBefore = rejected("cheap");
+
+        mockMvc.perform(get("/employees"))
+                .andExpect(MockMvcResultMatchers.status().is(503))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(503))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("server is overloaded, retry later"));
+        mockMvc.perform(post("/employees/adjustments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"gender\":\"Female\",\"salaryRaisePercent\":5}"))
+                .andExpect(MockMvcResultMatchers.status().is(503));
+
+        assertEquals(expensiveBefore + 2, rejected("expensive"));
+        assertEquals(cheapBefore, rejected("cheap"));
+    }
+
+    @Test
+    void should_admit_cheap_request_while_expensive_class_is_closed() throws Exception {
+        double expensiveBefore = rejected("expensive");
+        double cheapBefore = rejected("cheap");
+
+        mockMvc.perform(get("/employees").param("pageNumber", "1").param("pageSize", "2"))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        mockMvc.perform(get("/companies/{id}/employees", 1))
+                .andExpect(MockMvcResultMatchers.status().is(503));
+
+        assertEquals(expensiveBefore + 1, rejected("expensive"));
+        assertEquals(cheapBefore, rejected("cheap"));
+        assertEquals(0, meterRegistry.get("restapi.admission.inflight").tag("endpoint", "cheap").gauge().value());
+    }
+
+    @Test
+    void should_reject_expensive_sub_request_of_a_batch() throws Exception {
+        double expensiveBefore = rejected("expensive");
+
+        mockMvc.perform(post("/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\":["
+                                + "{\"id\":\"page\",\"method\":\"GET\",\"path\":\"/employees?pageNumber=1&pageSize=2\"},"
+                                + "{\"id\":\"all\",\"method\":\"GET\",\"path\":\"/employees\"}]}"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].status").value(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[1].status").value(503))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[1].body.message").value("server is overloaded, retry later"));
+
+        assertEquals(expensiveBefore + 1, rejected("expensive"));
+    }
+
+    private double rejected(String endpointClass) {
+        return meterRegistry.get("restapi.admission.rejected").tag("endpoint", endpointClass).counter().count();
+    }
+}
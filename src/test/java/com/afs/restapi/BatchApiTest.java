@@ -0,0 +1,173 @@
+package com.afs.restapi;
+
+import com.afs.restapi.entity.Company;
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.jdbc.SqlStatisticsRecorder;
+import com.afs.restapi.repository.CompanyRepository;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.dto.BatchItemRequest;
+import com.afs.restapi.service.dto.BatchRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BatchApiTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        companyRepository.deleteAll();
+    }
+
+    @Test
+    void should_return_results_of_parallel_reads_in_request_order() throws Exception {
+        Employee alice = employeeRepository.save(new Employee(null, "Alice", 24, "Female", 5000));
+        Employee bob = employeeRepository.save(new Employee(null, "Bob", 25, "Male", 6000));
+        Company company = companyRepository.save(new Company(null, "Spring"));
+
+        perform(new BatchRequest(false, List.of(
+                item("a", "GET", "/employees/" + alice.getId(), null),
+                item("b", "GET", "/employees/" + bob.getId(), null),
+                item("c", "GET", "/companies/" + company.getId(), null),
+                item("d", "GET", "/employees?pageNumber=1&pageSize=1", null),
+                item("e", "GET", "/companies/" + (company.getId() + 1000), null))))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rolledBack").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].id").value("a"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].status").value(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].body.name").value("Alice"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[1].body.name").value("Bob"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[2].body.name").value("Spring"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[3].body.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[4].status").value(404))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[4].body.code").value(404));
+    }
+
+    @Test
+    void should_count_statements_of_parallel_reads_into_the_batch_request() throws Exception {
+        Employee alice = employeeRepository.save(new Employee(null, "Alice", 24, "Female", 5000));
+        Employee bob = employeeRepository.save(new Employee(null, "Bob", 25, "Male", 6000));
+        Employee carol = employeeRepository.save(new Employee(null, "Carol", 26, "Female", 7000));
+        long subRequestsBefore = recordedRequests("GET /employees/{id}");
+
+        try (SqlStatisticsRecorder.RequestCapture capture = SqlStatisticsRecorder.captureRequests()) {
+            perform(new BatchRequest(false, List.of(
+                    item("a", "GET", "/employees/" + alice.getId(), null),
+                    item("b", "GET", "/employees/" + bob.getId(), null),
+                    item("c", "GET", "/employees/" + carol.getId(), null))))
+                    .andExpect(MockMvcResultMatchers.status().is(200));
+
+            assertEquals(1, capture.getRequests().size());
+            assertEquals("POST /batch", capture.getRequests().get(0).getEndpoint());
+            assertTrue(capture.getRequests().get(0).getStatistics().getStatements() >= 3);
+        }
+        assertEquals(subRequestsBefore + 3, recordedRequests("GET /employees/{id}"));
+    }
+
+    @Test
+    void should_let_reads_see_earlier_writes_of_the_batch() throws Exception {
+        perform(new BatchRequest(false, List.of(
+                item("create", "POST", "/employees", objectMapper.readTree(
+                        "{\"name\": \"Carol\", \"age\": 26, \"gender\": \"Female\", \"salary\": 7000}")),
+                item("list", "GET", "/employees?gender=Female", null))))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].status").value(201))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].body.name").value("Carol"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[1].status").value(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[1].body[0].name").value("Carol"));
+    }
+
+    @Test
+    void should_roll_back_transactional_batch_when_a_sub_request_fails() throws Exception {
+        Employee alice = employeeRepository.save(new Employee(null, "Alice", 24, "Female", 5000));
+
+        perform(new BatchRequest(true, List.of(
+                item("create", "POST", "/employees", objectMapper.readTree(
+                        "{\"name\": \"Carol\", \"age\": 26, \"gender\": \"Female\", \"salary\": 7000}")),
+                item("update", "PUT", "/employees/" + (alice.getId() + 100_000), objectMapper.readTree("{\"age\": 30}")),
+                item("delete", "DELETE", "/employees/" + alice.getId(), null))))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rolledBack").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].status").value(201))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[1].status").value(404))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[2].status").value(424));
+
+        assertEquals(List.of(alice.getId()), employeeRepository.findAll().stream().map(Employee::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void should_commit_transactional_batch_when_every_sub_request_succeeds() throws Exception {
+        Employee alice = employeeRepository.save(new Employee(null, "Alice", 24, "Female", 5000));
+
+        perform(new BatchRequest(true, List.of(
+                item("update", "PUT", "/employees/" + alice.getId(), objectMapper.readTree("{\"age\": 30}")),
+                item("get", "GET", "/employees/" + alice.getId(), null))))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rolledBack").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].status").value(204))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[1].body.age").value(30));
+
+        assertEquals(30, employeeRepository.findById(alice.getId()).orElseThrow().getAge());
+    }
+
+    @Test
+    void should_reject_nested_batch() throws Exception {
+        perform(new BatchRequest(false, List.of(item("nested", "POST", "/batch", null))))
+                .andExpect(MockMvcResultMatchers.status().is(400));
+    }
+
+    @Test
+    void should_reject_batch_over_the_request_limit() throws Exception {
+        List<BatchItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < 51; i++) {
+            items.add(item(String.valueOf(i), "GET", "/employees/1", null));
+        }
+
+        perform(new BatchRequest(false, items))
+                .andExpect(MockMvcResultMatchers.status().is(400));
+    }
+
+    private long recordedRequests(String endpoint) {
+        DistributionSummary statements = meterRegistry.find("restapi.sql.statements").tag("endpoint", endpoint).summary();
+        return statements == null ? 0 : statements.count();
+    }
+
+    private static BatchItemRequest item(String id, String method, String path, JsonNode body) {
+        return new BatchItemRequest(id, method, path, body);
+    }
+
+    private ResultActions perform(BatchRequest batchRequest) throws Exception {
+        return mockMvc.perform(post("/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)));
+    }
+}
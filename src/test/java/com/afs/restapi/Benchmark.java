@@ -0,0 +1,75 @@
+package com.afs.restapi;
+
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.sun.management.ThreadMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Measuring shared by the benchmark-tagged tests: each variant is warmed up, then run a number of
+ * times, and the report logs latency, throughput and bytes allocated per operation for every variant.
+ * Allocation is read from the calling thread, which covers the whole request as MockMvc runs it there.
+ */
+class Benchmark {
+    private static final Logger log = LoggerFactory.getLogger(Benchmark.class);
+
+    private final String name;
+    private final int warmupRuns;
+    private final int runs;
+    private final List<String> lines = new ArrayList<>();
+
+    Benchmark(String name, int warmupRuns, int runs) {
+        this.name = name;
+        this.warmupRuns = warmupRuns;
+        this.runs = runs;
+    }
+
+    /**
+     * Runs {@code action}, which performs {@code operationsPerRun} operations, and records the result
+     * under {@code variant}.
+     */
+    Benchmark measure(String variant, int operationsPerRun, Action action) throws Exception {
+        for (int i = 0; i < warmupRuns; i++) {
+            action.run();
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            action.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytes;
+        long operations = (long) operationsPerRun * runs;
+        lines.add(String.format("%-32s %12.1f us/op %12.0f op/s %12d bytes/op", variant,
+                nanos / 1000.0 / operations, operations / (nanos / 1_000_000_000.0), allocated / operations));
+        return this;
+    }
+
+    void report() {
+        log.info("{} ({} runs after {} warm-up runs){}{}", name, runs, warmupRuns, System.lineSeparator(),
+                String.join(System.lineSeparator(), lines));
+    }
+
+    static List<Long> seedEmployees(EmployeeRepository employeeRepository, int count) {
+        employeeRepository.deleteAll();
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            employees.add(new Employee(null, "Employee " + i, 20 + i % 40, i % 2 == 0 ? "Male" : "Female", 5000 + i));
+        }
+        return employeeRepository.saveAll(employees).stream()
+                .map(Employee::getId)
+                .collect(Collectors.toList());
+    }
+
+    interface Action {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,40 @@
+package com.afs.restapi;
+
+import com.afs.restapi.service.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+    private static final int INSERTIONS = 100_000;
+
+    @Test
+    void should_contain_every_value_put_into_it() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (long value = 1; value <= INSERTIONS; value++) {
+            filter.put(value * 7919);
+        }
+
+        for (long value = 1; value <= INSERTIONS; value++) {
+            assertTrue(filter.mightContain(value * 7919), "false negative for " + value * 7919);
+        }
+    }
+
+    @Test
+    void should_keep_false_positive_rate_near_the_sized_one() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (long value = 1; value <= INSERTIONS; value++) {
+            filter.put(value);
+        }
+
+        int falsePositives = 0;
+        for (long value = INSERTIONS + 1; value <= 2L * INSERTIONS; value++) {
+            if (filter.mightContain(value)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < INSERTIONS * 0.02, () -> "false positive rate too high");
+        assertFalse(new BloomFilter(INSERTIONS, 0.01).mightContain(42));
+    }
+}
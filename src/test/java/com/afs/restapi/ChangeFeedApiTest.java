@@ -0,0 +1,144 @@
+package com.afs.restapi;
+
+import com.afs.restapi.repository.ChangeEventRepository;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.dto.EmployeeRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+@SpringBootTest(properties = "restapi.change-feed.gap-timeout=PT0.2S")
+@AutoConfigureMockMvc
+class ChangeFeedApiTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        changeEventRepository.deleteAll();
+    }
+
+    @Test
+    void should_record_change_event_when_create_employee() throws Exception {
+        EmployeeRequest employeeRequest = new EmployeeRequest("Alice", 24, "Female", 5000, null);
+
+        mockMvc.perform(post("/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employeeRequest)))
+                .andExpect(MockMvcResultMatchers.status().is(201));
+
+        awaitPolledChanges();
+        mockMvc.perform(get("/changes").param("since", "0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].seq").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].entityType").value("EMPLOYEE"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].changeType").value("CREATED"));
+    }
+
+    @Test
+    void should_open_event_stream_when_subscribe_changes() throws Exception {
+        mockMvc.perform(get("/changes").param("since", "0").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted());
+    }
+
+    @Test
+    void should_push_event_to_subscriber_and_resume_after_last_event_id() throws Exception {
+        MvcResult first = subscribe(null);
+        long aliceId = createEmployee("Alice");
+
+        String firstStream = awaitStream(first, aliceId);
+        assertTrue(firstStream.contains("event:changes"));
+        String lastEventId = lastEventId(firstStream);
+
+        long bobId = createEmployee("Bob");
+        MvcResult resumed = subscribe(lastEventId);
+
+        String resumedStream = awaitStream(resumed, bobId);
+        assertFalse(mentions(resumedStream, aliceId));
+    }
+
+    /**
+     * Polling only returns settled events, so a change right after an earlier test's deleted events waits
+     * for the dispatcher to pass that gap.
+     */
+    private void awaitPolledChanges() throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            String response = mockMvc.perform(get("/changes").param("since", "0").accept(MediaType.APPLICATION_JSON))
+                    .andReturn().getResponse().getContentAsString();
+            if (objectMapper.readTree(response).size() > 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        MockHttpServletRequestBuilder request = get("/changes").accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+    }
+
+    private long createEmployee(String name) throws Exception {
+        String response = mockMvc.perform(post("/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new EmployeeRequest(name, 24, "Female", 5000, null))))
+                .andExpect(MockMvcResultMatchers.status().is(201))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    /**
+     * Reads the stream written so far until it carries the change of {@code employeeId} or the wait ends.
+     */
+    private static String awaitStream(MvcResult result, long employeeId) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String stream = result.getResponse().getContentAsString();
+        while (!mentions(stream, employeeId) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            stream = result.getResponse().getContentAsString();
+        }
+        assertTrue(mentions(stream, employeeId), stream);
+        return stream;
+    }
+
+    private static boolean mentions(String stream, long employeeId) {
+        return Pattern.compile("\"entityId\":" + employeeId + "[,}]").matcher(stream).find();
+    }
+
+    private static String lastEventId(String stream) {
+        Matcher matcher = Pattern.compile("^id:(.*)$", Pattern.MULTILINE).matcher(stream);
+        String id = null;
+        while (matcher.find()) {
+            id = matcher.group(1).trim();
+        }
+        return id;
+    }
+}
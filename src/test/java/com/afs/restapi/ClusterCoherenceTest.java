@@ -0,0 +1,126 @@
+package com.afs.restapi;
+
+import com.afs.restapi.service.IdExistenceFilters;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs two application nodes with their own response caches and id filters against one shared database
+ * and checks that a write on one node reaches the caches of the other through the change log.
+ */
+class ClusterCoherenceTest {
+    private static final long STALENESS_BOUND_MILLIS = 5000;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void should_evict_cached_employee_on_other_node_after_update() throws Exception {
+        long id = createEmployee(nodeA, "Bob", 22);
+        assertEquals("HIT", awaitCached(nodeB, id));
+
+        send(nodeA, "PUT", "/employees/" + id, "{\"age\": 40}");
+
+        assertEquals(40, awaitAge(nodeB, id, 40));
+    }
+
+    @Test
+    void should_find_employee_created_on_other_node_before_its_event_is_polled() throws Exception {
+        nodeB.getBean(IdExistenceFilters.class).rebuildEmployees();
+
+        long id = createEmployee(nodeA, "Alice", 30);
+
+        assertEquals(200, send(nodeB, "GET", "/employees/" + id, null).statusCode());
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(RestapiApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:cluster_coherence_test;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=none",
+                        "spring.jpa.show-sql=false",
+                        "spring.jmx.enabled=false",
+                        "restapi.response-cache.enabled=true",
+                        "restapi.change-feed.poll-interval=PT0.05S")
+                .run();
+    }
+
+    private static long createEmployee(ConfigurableApplicationContext node, String name, int age) throws Exception {
+        HttpResponse<String> response = send(node, "POST", "/employees",
+                "{\"name\": \"" + name + "\", \"age\": " + age + ", \"gender\": \"Male\", \"salary\": 5000}");
+        assertEquals(201, response.statusCode());
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+
+    /**
+     * Reads the employee from {@code node} until it is served from the cache, which happens once the node
+     * has also applied the creation event, or the staleness bound passes.
+     */
+    private static String awaitCached(ConfigurableApplicationContext node, long id) throws Exception {
+        long deadline = System.currentTimeMillis() + STALENESS_BOUND_MILLIS;
+        while (true) {
+            String cache = send(node, "GET", "/employees/" + id, null).headers()
+                    .firstValue("X-Response-Cache").orElse(null);
+            if ("HIT".equals(cache) || System.currentTimeMillis() > deadline) {
+                return cache;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Reads the employee from {@code node} until it reports {@code expectedAge} or the staleness bound passes.
+     */
+    private static int awaitAge(ConfigurableApplicationContext node, long id, int expectedAge) throws Exception {
+        long deadline = System.currentTimeMillis() + STALENESS_BOUND_MILLIS;
+        while (true) {
+            HttpResponse<String> response = send(node, "GET", "/employees/" + id, null);
+            JsonNode employee = objectMapper.readTree(response.body());
+            int age = employee.path("age").asInt(-1);
+            if (age == expectedAge || System.currentTimeMillis() > deadline) {
+                return age;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static HttpResponse<String> send(ConfigurableApplicationContext node, String method, String path,
+                                             String body) throws Exception {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
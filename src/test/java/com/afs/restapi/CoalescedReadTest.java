@@ -0,0 +1,196 @@
+package com.afs.restapi;
+
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.exception.RequestTimeoutException;
+import com.afs.restapi.jdbc.SqlStatistics;
+import com.afs.restapi.jdbc.SqlStatisticsRecorder;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.EmployeeService;
+import com.afs.restapi.service.RequestCoalescer;
+import com.afs.restapi.service.dto.EmployeeResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Coalescing through the real services and database: concurrent reads of one id must cost the
+ * statements of a single read, counted on every calling thread, and reads inside a transaction must
+ * neither see nor hand out another reader's view of the row.
+ */
+@SpringBootTest
+class CoalescedReadTest {
+    private static final int CALLERS = 20;
+    private static final String SLOW_QUERY =
+            "SELECT SUM(a.X + b.X) FROM SYSTEM_RANGE(1, 100000) a CROSS JOIN SYSTEM_RANGE(1, 100000) b";
+
+    @SpyBean
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EmployeeService employeeService;
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    void should_run_employee_query_once_when_concurrent_reads_ask_for_the_same_id() throws Exception {
+        Long id = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 10000)).getId();
+        SqlStatistics single = SqlStatisticsRecorder.start();
+        try {
+            employeeService.findById(id);
+        } finally {
+            SqlStatisticsRecorder.stop(single);
+        }
+        Mockito.clearInvocations(employeeRepository);
+
+        EmployeeRepository target = (EmployeeRepository) Mockito.mockingDetails(employeeRepository)
+                .getMockCreationSettings().getSpiedInstance();
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return target.findById(id);
+        }).when(employeeRepository).findById(eq(id));
+
+        double followersBefore = followers();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> statements = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                statements.add(executor.submit(() -> {
+                    SqlStatistics statistics = SqlStatisticsRecorder.start();
+                    try {
+                        EmployeeResponse response = employeeService.findById(id);
+                        assertEquals(id, response.getId());
+                    } finally {
+                        SqlStatisticsRecorder.stop(statistics);
+                    }
+                    return statistics.getStatements();
+                }));
+            }
+            waitUntilFollowers(followersBefore + CALLERS - 1);
+            release.countDown();
+
+            int total = 0;
+            for (Future<Integer> count : statements) {
+                total += count.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(single.getStatements(), total);
+            verify(employeeRepository, times(1)).findById(id);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_not_share_reads_between_a_transaction_and_outside_readers() throws Exception {
+        Long id = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 10000)).getId();
+        EmployeeRepository target = (EmployeeRepository) Mockito.mockingDetails(employeeRepository)
+                .getMockCreationSettings().getSpiedInstance();
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return target.findById(id);
+        }).when(employeeRepository).findById(eq(id));
+
+        double leadersBefore = leaders();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<EmployeeResponse> outside = executor.submit(() -> employeeService.findById(id));
+            waitUntil(this::leaders, leadersBefore + 1);
+
+            long start = System.nanoTime();
+            EmployeeResponse inside = transactionTemplate.execute(status -> {
+                jdbcTemplate.update("update employee set age = 40 where id = ?", id);
+                status.setRollbackOnly();
+                return employeeService.findById(id);
+            });
+
+            assertEquals(40, inside.getAge());
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2),
+                    "the transactional read should not have waited for the outside reader");
+            release.countDown();
+            assertEquals(22, outside.get(5, TimeUnit.SECONDS).getAge());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_cancel_leader_query_when_it_outlives_the_timeout() {
+        long start = System.nanoTime();
+
+        assertThrows(RequestTimeoutException.class, () -> requestCoalescer.execute("slowQuery", 1L, Duration.ofMillis(500),
+                () -> jdbcTemplate.queryForObject(SLOW_QUERY, Long.class)));
+
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10),
+                "the statement should have been cancelled at its query timeout");
+    }
+
+    private double followers() {
+        return calls("follower");
+    }
+
+    private double leaders() {
+        return calls("leader");
+    }
+
+    private double calls(String role) {
+        FunctionCounter counter = meterRegistry.find("restapi.coalescing.calls")
+                .tag("operation", "employeeById").tag("role", role).functionCounter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private void waitUntilFollowers(double expected) throws InterruptedException {
+        waitUntil(this::followers, expected);
+    }
+
+    private void waitUntil(DoubleSupplier calls, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (calls.getAsDouble() >= expected) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        Assertions.fail("timed out waiting for " + expected + " calls");
+    }
+}
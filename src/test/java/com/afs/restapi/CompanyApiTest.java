@@ -4,6 +4,8 @@ import com.afs.restapi.entity.Company;
 import com.afs.restapi.entity.Employee;
 import com.afs.restapi.repository.CompanyRepository;
 import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.IdExistenceFilter;
+import com.afs.restapi.service.IdExistenceFilters;
 import com.afs.restapi.service.dto.CompanyRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
@@ -31,6 +33,8 @@ class CompanyApiTest {
     private CompanyRepository companyRepository;
     @Autowired
     private EmployeeRepository employeeRepository;
+    @Autowired
+    private IdExistenceFilters idExistenceFilters;
 
     @BeforeEach
     void setUp() {
@@ -39,6 +43,7 @@ class CompanyApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 2)
     void should_find_companies() throws Exception {
         Company company = companyRepository.save(getCompanyOOCL());
 
@@ -52,6 +57,7 @@ class CompanyApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 2)
     void should_find_company_by_id() throws Exception {
         Company company = companyRepository.save(getCompanyOOCL());
         employeeRepository.save(getEmployee(company));
@@ -65,6 +71,77 @@ class CompanyApiTest {
     }
 
     @Test
+    void should_return_not_found_when_find_unknown_company() throws Exception {
+        Company company = companyRepository.save(getCompanyOOCL());
+
+        mockMvc.perform(get("/companies/{id}", company.getId() + 100))
+                .andExpect(MockMvcResultMatchers.status().is(404))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("company id not found"));
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 0)
+    void should_return_not_found_from_the_existence_filter_without_a_query() throws Exception {
+        Company company = companyRepository.save(getCompanyOOCL());
+        IdExistenceFilter filter = idExistenceFilters.companies();
+        idExistenceFilters.rebuildCompanies();
+        // an id learned from another node puts the unknown ids below the highest known one
+        filter.add(company.getId() + 1000);
+        long unknownId = company.getId() + 1;
+        while (filter.mightContain(unknownId)) {
+            unknownId++;
+        }
+
+        mockMvc.perform(get("/companies/{id}", unknownId))
+                .andExpect(MockMvcResultMatchers.status().is(404))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("company id not found"));
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 1)
+    void should_find_company_by_id_with_employees() throws Exception {
+        Company company = companyRepository.save(getCompanyOOCL());
+        Employee employee = employeeRepository.save(getEmployee(company));
+
+        mockMvc.perform(get("/companies/{id}", company.getId()).param("include", "employees"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(company.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employeesCount").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employees.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employees[0].id").value(employee.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employees[0].name").value(employee.getName()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employees[0].salary").doesNotExist());
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 3)
+    void should_find_companies_by_page_with_employees() throws Exception {
+        Company oocl = companyRepository.save(getCompanyOOCL());
+        Company thoughtworks = companyRepository.save(getCompanyThoughtWorks());
+        Employee employee = employeeRepository.save(getEmployee(thoughtworks));
+
+        mockMvc.perform(get("/companies")
+                        .param("pageNumber", "1")
+                        .param("pageSize", "2")
+                        .param("include", "employees"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(oocl.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].employeesCount").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].employees.length()").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").value(thoughtworks.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].employeesCount").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].employees[0].id").value(employee.getId()));
+    }
+
+    @Test
+    void should_reject_unsupported_include() throws Exception {
+        mockMvc.perform(get("/companies").param("include", "projects"))
+                .andExpect(MockMvcResultMatchers.status().is(400));
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 3)
     void should_update_company_name() throws Exception {
         Company previousCompany = companyRepository.save(new Company(null, "Facebook"));
         CompanyRequest companyUpdateRequest = new CompanyRequest("Meta");
@@ -93,6 +170,7 @@ class CompanyApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 2)
     void should_create_company() throws Exception {
         CompanyRequest companyRequest = new CompanyRequest("Fully Booked");
 
@@ -109,6 +187,7 @@ class CompanyApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 3)
     void should_find_companies_by_page() throws Exception {
         Company oocl = companyRepository.save(getCompanyOOCL());
         Company thoughtworks = companyRepository.save(getCompanyThoughtWorks());
@@ -130,6 +209,27 @@ class CompanyApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 2)
+    void should_find_companies_by_ids_in_request_order() throws Exception {
+        Company oocl = companyRepository.save(getCompanyOOCL());
+        Company thoughtworks = companyRepository.save(getCompanyThoughtWorks());
+        employeeRepository.save(getEmployee(oocl));
+        long missingId = thoughtworks.getId() + 100;
+
+        mockMvc.perform(get("/companies")
+                        .param("ids", thoughtworks.getId() + "," + oocl.getId() + "," + missingId))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(thoughtworks.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].employeesCount").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].id").value(oocl.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].name").value(oocl.getName()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].employeesCount").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missingIds[0]").value(missingId));
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 1)
     void should_find_employees_by_companies() throws Exception {
         Company oocl = companyRepository.save(getCompanyOOCL());
         Employee employee = employeeRepository.save(getEmployee(oocl));
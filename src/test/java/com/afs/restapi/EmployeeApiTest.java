@@ -1,7 +1,11 @@
 package com.afs.restapi;
 
+import com.afs.restapi.config.BulkAdjustmentProperties;
 import com.afs.restapi.entity.Employee;
 import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.IdExistenceFilter;
+import com.afs.restapi.service.IdExistenceFilters;
+import com.afs.restapi.service.dto.EmployeeAdjustmentRequest;
 import com.afs.restapi.service.dto.EmployeeRequest;
 import com.afs.restapi.service.dto.EmployeeUpdateRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,6 +19,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.notNullValue;
@@ -29,12 +35,17 @@ class EmployeeApiTest {
     private MockMvc mockMvc;
     @Autowired
     private EmployeeRepository employeeRepository;
+    @Autowired
+    private IdExistenceFilters idExistenceFilters;
+    @Autowired
+    private BulkAdjustmentProperties bulkAdjustmentProperties;
 
     @BeforeEach
     void setUp() {
         employeeRepository.deleteAll();
     }
     @Test
+    @SqlStatementBudget(statements = 1)
     void should_find_employees() throws Exception {
         Employee bob = employeeRepository.save(getEmployeeBob());
         mockMvc.perform(get("/employees"))
@@ -47,6 +58,7 @@ class EmployeeApiTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].salary").doesNotExist());
     }
     @Test
+    @SqlStatementBudget(statements = 1)
     void should_find_employee_by_gender() throws Exception {
         Employee bob = employeeRepository.save(getEmployeeBob());
         employeeRepository.save(getEmployeeSusan());
@@ -62,6 +74,7 @@ class EmployeeApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 2)
     void should_create_employee() throws Exception {
         EmployeeRequest employeeRequest = new EmployeeRequest("Alice", 24, "Female", 5000, null);
 
@@ -79,6 +92,7 @@ class EmployeeApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 3)
     void should_update_employee_age_and_salary() throws Exception {
         Employee previousEmployee = employeeRepository.save(new Employee(null,"Json", 22, "Male", 1000));
         EmployeeUpdateRequest employeeUpdateRequest = new EmployeeUpdateRequest(24,  2000);
@@ -101,6 +115,7 @@ class EmployeeApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 1)
     void should_find_employee_by_id() throws Exception {
         Employee employee = employeeRepository.save(getEmployeeBob());
 
@@ -114,6 +129,34 @@ class EmployeeApiTest {
     }
 
     @Test
+    void should_return_not_found_when_find_unknown_employee() throws Exception {
+        Employee employee = employeeRepository.save(getEmployeeBob());
+
+        mockMvc.perform(get("/employees/{id}", employee.getId() + 100))
+                .andExpect(MockMvcResultMatchers.status().is(404))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("employee id not found"));
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 0)
+    void should_return_not_found_from_the_existence_filter_without_a_query() throws Exception {
+        Employee employee = employeeRepository.save(getEmployeeBob());
+        IdExistenceFilter filter = idExistenceFilters.employees();
+        idExistenceFilters.rebuildEmployees();
+        // an id learned from another node puts the unknown ids below the highest known one
+        filter.add(employee.getId() + 1000);
+        long unknownId = employee.getId() + 1;
+        while (filter.mightContain(unknownId)) {
+            unknownId++;
+        }
+
+        mockMvc.perform(get("/employees/{id}", unknownId))
+                .andExpect(MockMvcResultMatchers.status().is(404))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("employee id not found"));
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 2)
     void should_find_employees_by_page() throws Exception {
         Employee bob = employeeRepository.save(getEmployeeBob());
         Employee susan = employeeRepository.save(getEmployeeSusan());
@@ -137,6 +180,7 @@ class EmployeeApiTest {
     }
 
     @Test
+    @SqlStatementBudget(statements = 3)
     void should_delete_employee_by_id() throws Exception {
         Employee employee = employeeRepository.save(getEmployeeBob());
 
@@ -146,6 +190,106 @@ class EmployeeApiTest {
         assertTrue(employeeRepository.findById(1L).isEmpty());
     }
 
+    @Test
+    @SqlStatementBudget(statements = 1)
+    void should_find_employees_by_ids_in_request_order() throws Exception {
+        Employee bob = employeeRepository.save(getEmployeeBob());
+        Employee susan = employeeRepository.save(getEmployeeSusan());
+        long missingId = susan.getId() + 100;
+
+        mockMvc.perform(get("/employees")
+                        .param("ids", susan.getId() + "," + missingId + "," + bob.getId()))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(susan.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].name").value(susan.getName()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].salary").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].id").value(bob.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missingIds.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missingIds[0]").value(missingId));
+    }
+
+    @Test
+    void should_reject_ids_combined_with_gender() throws Exception {
+        Employee bob = employeeRepository.save(getEmployeeBob());
+
+        mockMvc.perform(get("/employees")
+                        .param("ids", String.valueOf(bob.getId()))
+                        .param("gender", "Male"))
+                .andExpect(MockMvcResultMatchers.status().is(400))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("ids cannot be combined with gender"));
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 3)
+    void should_raise_salary_of_matching_employees() throws Exception {
+        Employee bob = employeeRepository.save(getEmployeeBob());
+        Employee susan = employeeRepository.save(getEmployeeSusan());
+        Employee lily = employeeRepository.save(getEmployeeLily());
+        EmployeeAdjustmentRequest adjustmentRequest = new EmployeeAdjustmentRequest(null, "Female", 5, null);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        mockMvc.perform(post("/employees/adjustments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(adjustmentRequest)))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.affectedCount").value(2));
+
+        Assertions.assertEquals(10000, employeeRepository.findById(bob.getId()).orElseThrow().getSalary());
+        Assertions.assertEquals(11550, employeeRepository.findById(susan.getId()).orElseThrow().getSalary());
+        Assertions.assertEquals(12600, employeeRepository.findById(lily.getId()).orElseThrow().getSalary());
+        Assertions.assertEquals(lily.getAge(), employeeRepository.findById(lily.getId()).orElseThrow().getAge());
+    }
+
+    @Test
+    void should_adjust_each_matching_employee_once_across_chunks_with_id_gaps() throws Exception {
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            employees.add(employeeRepository.save(new Employee(null, "Employee " + i, 30, i % 3 == 0 ? "Male" : "Female", 1000 + i * 100)));
+        }
+        employeeRepository.deleteAll(List.of(employees.get(4), employees.get(6), employees.get(8)));
+        List<Employee> remaining = new ArrayList<>(employees);
+        remaining.removeAll(List.of(employees.get(4), employees.get(6), employees.get(8)));
+        int chunkSize = bulkAdjustmentProperties.getChunkSize();
+        bulkAdjustmentProperties.setChunkSize(2);
+        try {
+            mockMvc.perform(post("/employees/adjustments")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(new ObjectMapper().writeValueAsString(new EmployeeAdjustmentRequest(null, "Female", 10, null))))
+                    .andExpect(MockMvcResultMatchers.status().is(200))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.affectedCount").value(6));
+        } finally {
+            bulkAdjustmentProperties.setChunkSize(chunkSize);
+        }
+
+        for (Employee employee : remaining) {
+            int expected = "Female".equals(employee.getGender()) ? employee.getSalary() * 110 / 100 : employee.getSalary();
+            Assertions.assertEquals(expected, employeeRepository.findById(employee.getId()).orElseThrow().getSalary(), employee.getName());
+        }
+    }
+
+    @Test
+    void should_reject_adjustment_with_salary_raise_out_of_range() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int salaryRaisePercent : new int[]{-50, 101, Integer.MAX_VALUE}) {
+            mockMvc.perform(post("/employees/adjustments")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new EmployeeAdjustmentRequest(null, "Female", salaryRaisePercent, null))))
+                    .andExpect(MockMvcResultMatchers.status().is(400));
+        }
+    }
+
+    @Test
+    void should_reject_adjustment_without_changes() throws Exception {
+        EmployeeAdjustmentRequest adjustmentRequest = new EmployeeAdjustmentRequest(null, "Female", null, null);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        mockMvc.perform(post("/employees/adjustments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(adjustmentRequest)))
+                .andExpect(MockMvcResultMatchers.status().is(400));
+    }
+
     private static Employee getEmployeeBob() {
         Employee employee = new Employee();
         employee.setName("Bob");
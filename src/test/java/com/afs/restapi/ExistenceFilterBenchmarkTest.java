@@ -0,0 +1,69 @@
+package com.afs.restapi;
+
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.IdExistenceFilters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "restapi.existence-filter.replay-window=PT0S"})
+@AutoConfigureMockMvc
+class ExistenceFilterBenchmarkTest {
+    private static final int EMPLOYEES = 2000;
+    private static final int LOOKUPS = 5000;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private IdExistenceFilters idExistenceFilters;
+
+    private List<Long> unknownIds;
+
+    /**
+     * Ids above the highest known one pass the filter as possibly created on another node, so the unknown
+     * ids are the deleted ones below it. Recent adds are not replayed into the rebuilt filter, which
+     * would bring the deleted ids back.
+     */
+    @BeforeEach
+    void setUp() {
+        List<Long> ids = Benchmark.seedEmployees(employeeRepository, LOOKUPS + EMPLOYEES);
+        unknownIds = ids.subList(0, LOOKUPS);
+        employeeRepository.deleteAllByIdInBatch(unknownIds);
+        idExistenceFilters.rebuildEmployees();
+    }
+
+    @AfterEach
+    void tearDown() {
+        idExistenceFilters.employees().setEnabled(true);
+    }
+
+    @Test
+    void should_compare_not_found_throughput_with_and_without_filter() throws Exception {
+        Benchmark benchmark = new Benchmark("GET /employees/{id} for unknown ids", 1, 1);
+        idExistenceFilters.employees().setEnabled(false);
+        benchmark.measure("without filter", LOOKUPS, this::lookUpUnknownIds);
+        idExistenceFilters.employees().setEnabled(true);
+        benchmark.measure("with filter", LOOKUPS, this::lookUpUnknownIds);
+        benchmark.report();
+    }
+
+    private void lookUpUnknownIds() throws Exception {
+        for (Long id : unknownIds) {
+            mockMvc.perform(get("/employees/{id}", id))
+                    .andExpect(MockMvcResultMatchers.status().is(404));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.afs.restapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Loads the context the way the startup benchmark runs it: fast-startup on the in-memory MySQL-mode
+ * database, with the schema coming from the Flyway migrations only.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"fast-startup", "local-h2"})
+class FastStartupContextTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    void should_keep_scheduled_beans_eager_and_the_rest_lazy() {
+        assertTrue(beanFactory.getBeanDefinition("employeeService").isLazyInit());
+        assertFalse(beanFactory.getBeanDefinition("changeFeedDispatcher").isLazyInit());
+        assertTrue(beanFactory.containsSingleton("changeFeedDispatcher"));
+        assertTrue(beanFactory.containsSingleton("idExistenceFilters"));
+    }
+
+    @Test
+    void should_serve_migrated_data_with_deferred_repositories() throws Exception {
+        mockMvc.perform(get("/employees"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("John Smith"));
+        mockMvc.perform(get("/companies"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("OOCL"));
+    }
+}
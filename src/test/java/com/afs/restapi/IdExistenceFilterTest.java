@@ -0,0 +1,57 @@
+package com.afs.restapi;
+
+import com.afs.restapi.config.ExistenceFilterProperties;
+import com.afs.restapi.service.IdExistenceFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdExistenceFilterTest {
+
+    @Test
+    void should_replay_ids_added_shortly_before_a_rebuild_the_scan_did_not_see() {
+        IdExistenceFilter filter = newFilter();
+        filter.rebuild(3, (afterId, pageSize) -> ids(afterId, 3));
+        filter.add(5);
+
+        // the scan misses id 5, as if its transaction had not committed yet when the scan passed it
+        filter.rebuild(3, (afterId, pageSize) -> ids(afterId, 3));
+
+        assertTrue(filter.mightContain(5L));
+    }
+
+    @Test
+    void should_answer_ids_up_to_the_highest_known_one_and_pass_newer_ones_through() {
+        IdExistenceFilter filter = newFilter();
+        filter.rebuild(100, (afterId, pageSize) -> ids(afterId, 100).stream()
+                .filter(id -> id % 2 == 0)
+                .collect(Collectors.toList()));
+
+        assertTrue(filter.mightContain(100L));
+        assertFalse(filter.mightContain(-1L));
+        long missingOddIds = LongStream.rangeClosed(1, 99).filter(id -> id % 2 == 1)
+                .filter(id -> !filter.mightContain(id))
+                .count();
+        assertTrue(missingOddIds > 40);
+        assertTrue(filter.mightContain(101L));
+        assertTrue(filter.mightContain(1_000_000L));
+    }
+
+    private static IdExistenceFilter newFilter() {
+        ExistenceFilterProperties properties = new ExistenceFilterProperties();
+        properties.setMinCapacity(1_000);
+        return new IdExistenceFilter(properties, id -> 0, new long[]{0});
+    }
+
+    /**
+     * The ids after {@code afterId} up to {@code lastId}, all in one page.
+     */
+    private static List<Long> ids(long afterId, long lastId) {
+        return LongStream.rangeClosed(afterId + 1, lastId).boxed().collect(Collectors.toList());
+    }
+}
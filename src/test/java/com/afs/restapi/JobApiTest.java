@@ -0,0 +1,209 @@
+package com.afs.restapi;
+
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.entity.Job;
+import com.afs.restapi.entity.JobStatus;
+import com.afs.restapi.entity.JobType;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.repository.JobRepository;
+import com.afs.restapi.service.JobService;
+import com.afs.restapi.service.dto.EmployeeRequest;
+import com.afs.restapi.service.dto.JobRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = {
+        "restapi.jobs.chunk-size=2",
+        "restapi.jobs.export-directory=build/tmp/job-exports"
+})
+@AutoConfigureMockMvc
+class JobApiTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private JobRepository jobRepository;
+    @Autowired
+    private JobService jobService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository.deleteAll();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    void should_import_employees_in_chunks() throws Exception {
+        JobRequest jobRequest = new JobRequest();
+        jobRequest.setType(JobType.EMPLOYEE_IMPORT);
+        jobRequest.setEmployees(List.of(
+                new EmployeeRequest("Alice", 24, "Female", 5000, null),
+                new EmployeeRequest("Bob", 25, "Male", 6000, null),
+                new EmployeeRequest("Carol", 26, "Female", 7000, null)));
+
+        long id = submit(jobRequest);
+
+        JsonNode job = awaitFinished(id);
+        assertEquals("SUCCEEDED", job.get("status").asText());
+        assertEquals(3, job.get("total").asLong());
+        assertEquals(3, job.get("processed").asLong());
+        assertEquals(100.0, job.get("percentComplete").asDouble());
+        assertTrue(job.get("itemsPerSecond").isNumber());
+        assertEquals(3, employeeRepository.count());
+    }
+
+    @Test
+    void should_export_matching_employees_as_csv() throws Exception {
+        employeeRepository.save(new Employee(null, "Alice", 24, "Female", 5000));
+        employeeRepository.save(new Employee(null, "Bob", 25, "Male", 6000));
+        employeeRepository.save(new Employee(null, "Carol", 26, "Female", 7000));
+        JobRequest jobRequest = new JobRequest();
+        jobRequest.setType(JobType.EMPLOYEE_EXPORT);
+        jobRequest.setGender("Female");
+
+        long id = submit(jobRequest);
+
+        assertEquals("SUCCEEDED", awaitFinished(id).get("status").asText());
+        String csv = mockMvc.perform(get("/jobs/{id}/result", id))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = csv.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,name,age,gender,salary,companyId", lines[0]);
+        assertTrue(lines[1].contains("\"Alice\""));
+        assertTrue(lines[2].contains("\"Carol\""));
+    }
+
+    @Test
+    void should_resume_interrupted_delete_job_from_checkpoint() throws Exception {
+        Employee alice = employeeRepository.save(new Employee(null, "Alice", 24, "Female", 5000));
+        Employee bob = employeeRepository.save(new Employee(null, "Bob", 25, "Female", 6000));
+        employeeRepository.save(new Employee(null, "Carol", 26, "Female", 7000));
+        JobRequest jobRequest = new JobRequest();
+        jobRequest.setType(JobType.EMPLOYEE_DELETE);
+        jobRequest.setGender("Female");
+        Job interrupted = new Job(JobType.EMPLOYEE_DELETE, objectMapper.writeValueAsString(jobRequest), Instant.now());
+        interrupted.setStatus(JobStatus.RUNNING);
+        interrupted.setOwner("crashed-instance");
+        interrupted.setUpdatedAt(Instant.now().minus(Duration.ofHours(1)));
+        interrupted.setTotal(3L);
+        interrupted.setProcessed(2);
+        interrupted.setCursorId(bob.getId());
+        interrupted = jobRepository.save(interrupted);
+
+        jobService.afterPropertiesSet();
+        jobService.dispatch();
+
+        JsonNode job = awaitFinished(interrupted.getId());
+        assertEquals("SUCCEEDED", job.get("status").asText());
+        assertEquals(3, job.get("processed").asLong());
+        assertEquals(2, employeeRepository.count());
+        assertTrue(employeeRepository.existsById(alice.getId()));
+    }
+
+    @Test
+    void should_delete_sparse_matches_in_chunks_of_matching_ids() throws Exception {
+        Employee lastFemale = null;
+        for (int i = 0; i < 15; i++) {
+            Employee employee = employeeRepository.save(new Employee(null, "Employee" + i, 20 + i,
+                    i % 5 == 0 ? "Female" : "Male", 5000));
+            if (i % 5 == 0) {
+                lastFemale = employee;
+            }
+        }
+        JobRequest jobRequest = new JobRequest();
+        jobRequest.setType(JobType.EMPLOYEE_DELETE);
+        jobRequest.setGender("Female");
+
+        long id = submit(jobRequest);
+
+        JsonNode job = awaitFinished(id);
+        assertEquals("SUCCEEDED", job.get("status").asText());
+        assertEquals(3, job.get("processed").asLong());
+        assertEquals(12, employeeRepository.count());
+        assertEquals(lastFemale.getId().longValue(), jobRepository.findById(id).orElseThrow().getCursorId());
+    }
+
+    @Test
+    void should_leave_job_with_a_live_lease_to_its_owner() throws Exception {
+        employeeRepository.save(new Employee(null, "Alice", 24, "Female", 5000));
+        JobRequest jobRequest = new JobRequest();
+        jobRequest.setType(JobType.EMPLOYEE_DELETE);
+        jobRequest.setGender("Female");
+        Job leased = new Job(JobType.EMPLOYEE_DELETE, objectMapper.writeValueAsString(jobRequest), Instant.now());
+        leased.setStatus(JobStatus.RUNNING);
+        leased.setOwner("other-instance");
+        leased.setUpdatedAt(Instant.now());
+        leased = jobRepository.save(leased);
+
+        jobService.afterPropertiesSet();
+        jobService.heartbeat();
+        jobService.dispatch();
+
+        Job job = jobRepository.findById(leased.getId()).orElseThrow();
+        assertEquals(JobStatus.RUNNING, job.getStatus());
+        assertEquals("other-instance", job.getOwner());
+        assertEquals(1, employeeRepository.count());
+    }
+
+    @Test
+    void should_reject_delete_job_without_filter() throws Exception {
+        JobRequest jobRequest = new JobRequest();
+        jobRequest.setType(JobType.EMPLOYEE_DELETE);
+
+        mockMvc.perform(post("/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(jobRequest)))
+                .andExpect(MockMvcResultMatchers.status().is(400));
+    }
+
+    @Test
+    void should_return_404_when_cancel_unknown_job() throws Exception {
+        mockMvc.perform(delete("/jobs/{id}", 999))
+                .andExpect(MockMvcResultMatchers.status().is(404));
+    }
+
+    private long submit(JobRequest jobRequest) throws Exception {
+        String response = mockMvc.perform(post("/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(jobRequest)))
+                .andExpect(MockMvcResultMatchers.status().is(202))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private JsonNode awaitFinished(long id) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            String response = mockMvc.perform(get("/jobs/{id}", id))
+                    .andExpect(MockMvcResultMatchers.status().is(200))
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode job = objectMapper.readTree(response);
+            if (JobStatus.valueOf(job.get("status").asText()).isFinished() || System.nanoTime() > deadline) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
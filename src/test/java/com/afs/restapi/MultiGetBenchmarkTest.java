@@ -0,0 +1,59 @@
+package com.afs.restapi;
+
+import com.afs.restapi.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class MultiGetBenchmarkTest {
+    private static final int EMPLOYEES = 500;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = Benchmark.seedEmployees(employeeRepository, EMPLOYEES);
+    }
+
+    @Test
+    void should_compare_looped_single_get_with_multi_get() throws Exception {
+        String idList = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        new Benchmark("Fetching " + EMPLOYEES + " employees", 1, ROUNDS)
+                .measure("looped single-get", 1, this::loopedSingleGet)
+                .measure("multi-get", 1, () -> multiGet(idList))
+                .report();
+    }
+
+    private void loopedSingleGet() throws Exception {
+        for (Long id : ids) {
+            mockMvc.perform(get("/employees/{id}", id))
+                    .andExpect(MockMvcResultMatchers.status().is(200));
+        }
+    }
+
+    private void multiGet(String idList) throws Exception {
+        mockMvc.perform(get("/employees").param("ids", idList))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(EMPLOYEES));
+    }
+}
@@ -0,0 +1,147 @@
+package com.afs.restapi;
+
+import com.afs.restapi.config.CoalescingProperties;
+import com.afs.restapi.exception.CompanyNotFoundException;
+import com.afs.restapi.exception.RequestTimeoutException;
+import com.afs.restapi.service.RequestCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestCoalescerTest {
+    private static final int CALLERS = 50;
+
+    private MeterRegistry meterRegistry;
+    private RequestCoalescer requestCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        requestCoalescer = new RequestCoalescer(new CoalescingProperties(), meterRegistry);
+    }
+
+    @Test
+    void should_run_query_once_when_identical_reads_are_concurrent() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> requestCoalescer.execute("companyById", 1L, () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return new Object();
+                })));
+            }
+            waitUntilFollowers(CALLERS - 1);
+            release.countDown();
+
+            Object first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals((double) (CALLERS - 1) / CALLERS,
+                    meterRegistry.get("restapi.coalescing.ratio").tag("operation", "companyById").gauge().value(), 0.0001);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_run_query_again_when_previous_flight_completed() {
+        AtomicInteger executions = new AtomicInteger();
+
+        requestCoalescer.execute("employeesByGender", "Female", executions::incrementAndGet);
+        requestCoalescer.execute("employeesByGender", "Female", executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void should_share_exception_with_followers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> requestCoalescer.execute("companyById", 2L, () -> {
+                await(release);
+                throw new CompanyNotFoundException();
+            }));
+            waitUntilLeaders(1);
+            Future<Object> follower = executor.submit(() -> requestCoalescer.execute("companyById", 2L, Object::new));
+            waitUntilFollowers(1);
+            release.countDown();
+
+            Exception leaderException = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerException = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(leaderException.getCause() instanceof CompanyNotFoundException);
+            Assertions.assertTrue(followerException.getCause() instanceof CompanyNotFoundException);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_time_out_follower_when_flight_exceeds_key_timeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> requestCoalescer.execute("companyById", 3L, () -> {
+                await(release);
+                return new Object();
+            }));
+            waitUntilLeaders(1);
+
+            assertThrows(RequestTimeoutException.class,
+                    () -> requestCoalescer.execute("companyById", 3L, Duration.ofMillis(50), Object::new));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private void waitUntilFollowers(int expected) throws InterruptedException {
+        waitUntil("follower", expected);
+    }
+
+    private void waitUntilLeaders(int expected) throws InterruptedException {
+        waitUntil("leader", expected);
+    }
+
+    private void waitUntil(String role, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            var counter = meterRegistry.find("restapi.coalescing.calls").tag("role", role).functionCounter();
+            if (counter != null && counter.count() >= expected) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        Assertions.fail("timed out waiting for " + expected + " " + role + " calls");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
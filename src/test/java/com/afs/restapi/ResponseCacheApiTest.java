@@ -0,0 +1,146 @@
+package com.afs.restapi;
+
+import com.afs.restapi.entity.Company;
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.repository.CompanyRepository;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.ResponseCache;
+import com.afs.restapi.service.dto.EmployeeRequest;
+import com.afs.restapi.service.dto.EmployeeUpdateRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@SpringBootTest(properties = {
+        "restapi.response-cache.enabled=true",
+        "restapi.response-cache.gzip-min-bytes=1"
+})
+@AutoConfigureMockMvc
+class ResponseCacheApiTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private ResponseCache responseCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        companyRepository.deleteAll();
+        responseCache.clear();
+    }
+
+    @Test
+    void should_serve_employee_from_cache_until_it_is_updated() throws Exception {
+        Employee bob = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+
+        mockMvc.perform(get("/employees/{id}", bob.getId()))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "MISS"));
+        mockMvc.perform(get("/employees/{id}", bob.getId()))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "HIT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(22));
+
+        mockMvc.perform(put("/employees/{id}", bob.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new EmployeeUpdateRequest(30, 6000))))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+
+        mockMvc.perform(get("/employees/{id}", bob.getId()))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "MISS"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(30));
+    }
+
+    @Test
+    void should_invalidate_company_when_its_employees_change() throws Exception {
+        Company company = companyRepository.save(new Company(null, "Spring"));
+
+        mockMvc.perform(get("/companies/{id}", company.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employeesCount").value(0));
+        mockMvc.perform(post("/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new EmployeeRequest("Alice", 24, "Female", 5000, company.getId().intValue()))))
+                .andExpect(MockMvcResultMatchers.status().is(201));
+
+        mockMvc.perform(get("/companies/{id}", company.getId()))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "MISS"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employeesCount").value(1));
+    }
+
+    @Test
+    void should_serve_cached_employees_in_multi_get_and_cache_the_rest() throws Exception {
+        Employee bob = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+        Employee alice = employeeRepository.save(new Employee(null, "Alice", 24, "Female", 6000));
+        mockMvc.perform(get("/employees/{id}", bob.getId()))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "MISS"));
+        bob.setAge(40);
+        employeeRepository.save(bob);
+
+        mockMvc.perform(get("/employees").param("ids", bob.getId() + "," + alice.getId()))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].age").value(22))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].name").value("Alice"));
+
+        mockMvc.perform(get("/employees/{id}", alice.getId()))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "HIT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(24));
+    }
+
+    @Test
+    void should_serve_cached_companies_in_multi_get_and_cache_the_rest() throws Exception {
+        Company spring = companyRepository.save(new Company(null, "Spring"));
+        Company oocl = companyRepository.save(new Company(null, "OOCL"));
+        mockMvc.perform(get("/companies/{id}", spring.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employeesCount").value(0));
+        Employee alice = new Employee(null, "Alice", 24, "Female", 5000);
+        alice.setCompanyId(spring.getId());
+        employeeRepository.save(alice);
+
+        mockMvc.perform(get("/companies").param("ids", spring.getId() + "," + oocl.getId()))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].employeesCount").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].name").value("OOCL"));
+
+        mockMvc.perform(get("/companies/{id}", oocl.getId()))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "HIT"));
+    }
+
+    @Test
+    void should_serve_gzipped_bytes_to_clients_accepting_gzip() throws Exception {
+        employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+        String plain = mockMvc.perform(get("/employees").param("pageNumber", "1").param("pageSize", "2"))
+                .andReturn().getResponse().getContentAsString();
+
+        byte[] gzipped = mockMvc.perform(get("/employees").param("pageNumber", "1").param("pageSize", "2")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "HIT"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals(plain, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.afs.restapi;
+
+import com.afs.restapi.config.ResponseCacheProperties;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.ResponseCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Compares bytes allocated and latency per request with the response cache off and on.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "restapi.response-cache.enabled=true"})
+@AutoConfigureMockMvc
+class ResponseCacheBenchmarkTest {
+    private static final int EMPLOYEES = 200;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private ResponseCacheProperties properties;
+    @Autowired
+    private ResponseCache responseCache;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = Benchmark.seedEmployees(employeeRepository, EMPLOYEES);
+        responseCache.clear();
+    }
+
+    @Test
+    void should_compare_allocation_and_latency_with_and_without_response_cache() throws Exception {
+        Benchmark benchmark = new Benchmark("GET /employees/{id}", 1, ROUNDS);
+        properties.setEnabled(false);
+        benchmark.measure("uncached", EMPLOYEES, this::getAll);
+        properties.setEnabled(true);
+        benchmark.measure("cached", EMPLOYEES, this::getAll);
+        benchmark.report();
+    }
+
+    private void getAll() throws Exception {
+        for (Long id : ids) {
+            mockMvc.perform(get("/employees/{id}", id))
+                    .andExpect(MockMvcResultMatchers.status().is(200));
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.afs.restapi;
+
+import com.afs.restapi.entity.Job;
+import com.afs.restapi.entity.JobStatus;
+import com.afs.restapi.entity.JobType;
+import com.afs.restapi.jdbc.SqlStatisticsRecorder;
+import com.afs.restapi.repository.JobRepository;
+import com.afs.restapi.service.JobService;
+import com.afs.restapi.service.dto.CompanyRequest;
+import com.afs.restapi.service.dto.EmployeeRequest;
+import com.afs.restapi.service.dto.JobRequest;
+import com.afs.restapi.sharding.ShardDataSources;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+@SpringBootTest(properties = {
+        "restapi.sharding.enabled=true",
+        "restapi.sharding.shards[0].url=jdbc:h2:mem:shard0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "restapi.sharding.shards[1].url=jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureMockMvc
+class ShardingApiTest {
+    private static final long ID_RANGE_SIZE = 100_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ShardDataSources shardDataSources;
+    @Autowired
+    private JobRepository jobRepository;
+    @Autowired
+    private JobService jobService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardDataSources.get(shard));
+            jdbcTemplate.update("delete from employee");
+            jdbcTemplate.update("delete from company");
+            jdbcTemplate.update("delete from change_event");
+            jdbcTemplate.update(shard == 0 ? "delete from job" : "delete from job_checkpoint");
+        }
+    }
+
+    @Test
+    void should_place_companies_and_their_employees_on_the_same_shard() throws Exception {
+        long first = createCompany("OOCL");
+        long second = createCompany("Thoughtworks");
+        long firstEmployee = createEmployee("Bob", first);
+        long secondEmployee = createEmployee("Susan", second);
+
+        assertNotEquals(shardOf(first), shardOf(second));
+        assertEquals(shardOf(first), shardOf(firstEmployee));
+        assertEquals(shardOf(second), shardOf(secondEmployee));
+        assertEquals(1, countRows(shardOf(first), "employee"));
+        assertEquals(1, countRows(shardOf(second), "employee"));
+    }
+
+    @Test
+    void should_merge_employees_of_every_shard() throws Exception {
+        long first = createCompany("OOCL");
+        long second = createCompany("Thoughtworks");
+        createEmployee("Bob", first);
+        createEmployee("Susan", second);
+        createEmployee("Lily", first);
+
+        mockMvc.perform(get("/employees"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3));
+        mockMvc.perform(get("/employees").param("gender", "Female"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3));
+        mockMvc.perform(get("/companies"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void should_count_statements_of_every_shard_into_the_request() throws Exception {
+        createCompany("OOCL");
+        createCompany("Thoughtworks");
+
+        try (SqlStatisticsRecorder.RequestCapture capture = SqlStatisticsRecorder.captureRequests()) {
+            mockMvc.perform(get("/employees"))
+                    .andExpect(MockMvcResultMatchers.status().is(200));
+
+            assertEquals(1, capture.getRequests().size());
+            assertTrue(capture.getRequests().get(0).getStatistics().getStatements() >= shardDataSources.size());
+        }
+    }
+
+    @Test
+    void should_page_through_employees_across_shards_in_id_order() throws Exception {
+        long first = createCompany("OOCL");
+        long second = createCompany("Thoughtworks");
+        createEmployee("Bob", first);
+        createEmployee("Susan", second);
+        createEmployee("Lily", first);
+        createEmployee("Tom", second);
+        String lastOfFirstShard = shardOf(first) == 0 ? "Lily" : "Tom";
+        String firstOfSecondShard = shardOf(first) == 0 ? "Susan" : "Bob";
+
+        mockMvc.perform(get("/employees").param("pageNumber", "2").param("pageSize", "1"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value(lastOfFirstShard));
+        mockMvc.perform(get("/employees").param("pageNumber", "2").param("pageSize", "2"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value(firstOfSecondShard));
+    }
+
+    @Test
+    void should_page_through_companies_with_their_employees_across_shards() throws Exception {
+        Map<Long, String> employeeOfCompany = new TreeMap<>();
+        for (String name : List.of("OOCL", "Thoughtworks", "Spring")) {
+            long company = createCompany(name);
+            createEmployee("Employee of " + name, company);
+            employeeOfCompany.put(company, "Employee of " + name);
+        }
+        long secondCompany = new ArrayList<>(employeeOfCompany.keySet()).get(1);
+
+        mockMvc.perform(get("/companies").param("pageNumber", "2").param("pageSize", "1").param("include", "employees"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(secondCompany))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].employees.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].employees[0].name").value(employeeOfCompany.get(secondCompany)));
+        mockMvc.perform(get("/companies").param("pageNumber", "2").param("pageSize", "2"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].employeesCount").value(1));
+    }
+
+    @Test
+    void should_refuse_pages_deeper_than_the_scatter_gather_limit() throws Exception {
+        mockMvc.perform(get("/employees").param("pageNumber", "10001").param("pageSize", "1"))
+                .andExpect(MockMvcResultMatchers.status().is(400));
+        mockMvc.perform(get("/companies").param("pageNumber", "2").param("pageSize", "10000"))
+                .andExpect(MockMvcResultMatchers.status().is(400));
+    }
+
+    @Test
+    void should_route_single_row_operations_to_the_owning_shard() throws Exception {
+        createCompany("OOCL");
+        long company = createCompany("Thoughtworks");
+        long employee = createEmployee("Susan", company);
+
+        mockMvc.perform(get("/companies/{id}", company))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employeesCount").value(1));
+        mockMvc.perform(get("/companies/{id}/employees", company))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(employee));
+        mockMvc.perform(put("/employees/{id}", employee)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\": 30}"))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+        mockMvc.perform(get("/employees/{id}", employee))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(30));
+        mockMvc.perform(delete("/employees/{id}", employee))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+        assertEquals(0, countRows(shardOf(company), "employee"));
+    }
+
+    @Test
+    void should_return_changes_of_every_shard_with_a_position_per_shard() throws Exception {
+        createCompany("OOCL");
+        createCompany("Thoughtworks");
+
+        mockMvc.perform(get("/changes").param("since", "0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.header().string("X-Change-Feed-Position", containsString(",")));
+    }
+
+    @Test
+    void should_resume_job_from_a_shard_checkpoint_the_job_row_missed() throws Exception {
+        long first = createCompany("OOCL");
+        long second = createCompany("Thoughtworks");
+        long onSecondShard = shardOf(first) == 1 ? first : second;
+        long committed = createEmployee("Susan", onSecondShard);
+        createEmployee("Lily", onSecondShard);
+        JobRequest jobRequest = new JobRequest();
+        jobRequest.setType(JobType.EMPLOYEE_DELETE);
+        jobRequest.setGender("Female");
+        Job crashed = new Job(JobType.EMPLOYEE_DELETE, objectMapper.writeValueAsString(jobRequest), Instant.now());
+        crashed.setStatus(JobStatus.RUNNING);
+        crashed.setOwner("crashed-instance");
+        crashed.setUpdatedAt(Instant.now().minus(Duration.ofHours(1)));
+        crashed.setTotal(2L);
+        crashed = jobRepository.save(crashed);
+        new JdbcTemplate(shardDataSources.get(1)).update(
+                "insert into job_checkpoint (job_id, cursor_id, processed) values (?, ?, ?)", crashed.getId(), committed, 1);
+
+        jobService.afterPropertiesSet();
+        jobService.dispatch();
+
+        Job job = awaitFinished(crashed.getId());
+        assertEquals(JobStatus.SUCCEEDED, job.getStatus());
+        assertEquals(2, job.getProcessed());
+        assertEquals(List.of(committed), new JdbcTemplate(shardDataSources.get(1))
+                .queryForList("select id from employee", Long.class));
+        assertEquals(0, countRows(1, "job_checkpoint"));
+    }
+
+    private Job awaitFinished(long id) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            Job job = jobRepository.findById(id).orElseThrow();
+            if (job.getStatus().isFinished() || System.nanoTime() > deadline) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private long createCompany(String name) throws Exception {
+        String response = mockMvc.perform(post("/companies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CompanyRequest(name))))
+                .andExpect(MockMvcResultMatchers.status().is(201))
+                .andReturn().getResponse().getContentAsString();
+        return idOf(response);
+    }
+
+    private long createEmployee(String name, long companyId) throws Exception {
+        EmployeeRequest employeeRequest = new EmployeeRequest(name, 22, "Female", 5000, (int) companyId);
+        String response = mockMvc.perform(post("/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employeeRequest)))
+                .andExpect(MockMvcResultMatchers.status().is(201))
+                .andReturn().getResponse().getContentAsString();
+        return idOf(response);
+    }
+
+    private long idOf(String response) throws Exception {
+        JsonNode node = objectMapper.readTree(response);
+        return node.get("id").asLong();
+    }
+
+    private int shardOf(long id) {
+        return (int) ((id - 1) / ID_RANGE_SIZE);
+    }
+
+    private int countRows(int shard, String table) {
+        Integer count = new JdbcTemplate(shardDataSources.get(shard)).queryForObject("select count(*) from " + table, Integer.class);
+        return count == null ? 0 : count;
+    }
+}
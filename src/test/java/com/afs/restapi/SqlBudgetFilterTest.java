@@ -0,0 +1,66 @@
+package com.afs.restapi;
+
+import com.afs.restapi.config.SqlBudgetFilter;
+import com.afs.restapi.config.SqlBudgetProperties;
+import com.afs.restapi.exception.SqlBudgetExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class SqlBudgetFilterTest {
+    @Autowired
+    private SqlBudgetFilter sqlBudgetFilter;
+    @Autowired
+    private SqlBudgetProperties properties;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        properties.getBudgets().removeIf(budget -> "GET <unmapped>".equals(budget.getEndpoint()));
+    }
+
+    @Test
+    void should_fail_request_over_budget_before_its_body_reaches_the_client() {
+        properties.getBudgets().add(new SqlBudgetProperties.Budget("GET <unmapped>", 1, null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(SqlBudgetExceededException.class, () -> sqlBudgetFilter.doFilter(
+                new MockHttpServletRequest("GET", "/anything"), response, writeBodyAfterQueries(2)));
+
+        assertFalse(response.isCommitted());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void should_pass_the_buffered_body_through_within_budget() throws Exception {
+        properties.getBudgets().add(new SqlBudgetProperties.Budget("GET <unmapped>", 2, null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        sqlBudgetFilter.doFilter(new MockHttpServletRequest("GET", "/anything"), response, writeBodyAfterQueries(2));
+
+        assertEquals("body", response.getContentAsString());
+    }
+
+    private FilterChain writeBodyAfterQueries(int queries) {
+        return (request, response) -> {
+            for (int i = 0; i < queries; i++) {
+                jdbcTemplate.queryForObject("select 1", Integer.class);
+            }
+            response.getOutputStream().write("body".getBytes(StandardCharsets.UTF_8));
+            response.flushBuffer();
+        };
+    }
+}
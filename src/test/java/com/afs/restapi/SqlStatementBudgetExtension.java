@@ -0,0 +1,33 @@
+package com.afs.restapi;
+
+import com.afs.restapi.config.SqlBudgetFilter;
+import com.afs.restapi.jdbc.SqlStatisticsRecorder;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), SqlStatisticsRecorder.captureRequests());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementBudget budget = context.getRequiredTestMethod().getAnnotation(SqlStatementBudget.class);
+        try (SqlStatisticsRecorder.RequestCapture capture = context.getStore(NAMESPACE)
+                .remove(context.getUniqueId(), SqlStatisticsRecorder.RequestCapture.class)) {
+            assertFalse(capture.getRequests().isEmpty(), "No request was captured");
+            for (SqlStatisticsRecorder.RequestStatistics request : capture.getRequests()) {
+                int statements = request.getStatistics().getStatements();
+                assertTrue(statements <= budget.statements(), () -> String.format("%s executed %d statements, budget %d; %s",
+                        request.getEndpoint(), statements, budget.statements(), SqlBudgetFilter.describe(request.getStatistics())));
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.afs.restapi;
+
+import com.afs.restapi.config.StartupWarmup;
+import com.afs.restapi.entity.Company;
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.repository.CompanyRepository;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.ResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = {
+        "restapi.response-cache.enabled=true",
+        "restapi.warmup.threads=2",
+        "restapi.warmup.iterations=3",
+        "restapi.warmup.page-sizes=10"
+})
+@AutoConfigureMockMvc
+class StartupWarmupTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private StartupWarmup startupWarmup;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        companyRepository.deleteAll();
+        responseCache.clear();
+    }
+
+    @Test
+    void should_prime_response_cache_with_hot_ids_and_first_pages() throws Exception {
+        Company company = companyRepository.save(new Company(null, "Spring"));
+        Employee bob = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+
+        assertTrue(startupWarmup.warmUp());
+
+        mockMvc.perform(get("/employees/{id}", bob.getId()))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "HIT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(22));
+        mockMvc.perform(get("/companies/{id}", company.getId()))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "HIT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Spring"));
+        mockMvc.perform(get("/employees").param("pageNumber", "1").param("pageSize", "10"))
+                .andExpect(MockMvcResultMatchers.header().string("X-Response-Cache", "HIT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(bob.getId()));
+    }
+
+    @Test
+    void should_report_warmup_in_metrics() {
+        employeeRepository.save(new Employee(null, "Alice", 30, "Female", 6000));
+
+        startupWarmup.warmUp();
+
+        assertTrue(meterRegistry.get("restapi.warmup.operations").tag("outcome", "success").counter().count() > 0);
+        assertTrue(meterRegistry.get("restapi.warmup.duration").tag("phase", "read-paths").timer().count() > 0);
+    }
+}
@@ -0,0 +1,65 @@
+package com.afs.restapi;
+
+import com.afs.restapi.load.SyntheticDataGenerator;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticDataGeneratorTest {
+    private static final String SUMMARY = "select count(*) as employees, sum(age) as ages, sum(salary) as salaries, "
+            + "sum(company_id) as company_ids, sum(case when gender = 'Female' then 1 else 0 end) as females "
+            + "from employee";
+
+    @Test
+    void should_generate_the_same_data_for_the_same_seed() {
+        DataSource first = migratedDatabase("generator_first");
+        DataSource second = migratedDatabase("generator_second");
+        DataSource otherSeed = migratedDatabase("generator_other_seed");
+
+        new SyntheticDataGenerator(first).generate(20, 10_000, 42);
+        new SyntheticDataGenerator(second).generate(20, 10_000, 42);
+        new SyntheticDataGenerator(otherSeed).generate(20, 10_000, 7);
+
+        List<Map<String, Object>> summary = new JdbcTemplate(first).queryForList(SUMMARY);
+        assertEquals(summary, new JdbcTemplate(second).queryForList(SUMMARY));
+        assertNotEquals(summary, new JdbcTemplate(otherSeed).queryForList(SUMMARY));
+        assertEquals(22, new JdbcTemplate(first).queryForObject("select count(*) from company", Integer.class));
+        assertEquals(10_005, new JdbcTemplate(first).queryForObject("select count(*) from employee", Integer.class));
+    }
+
+    @Test
+    void should_reset_a_generated_database_to_its_generated_rows() {
+        DataSource dataSource = migratedDatabase("generator_reset");
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(dataSource);
+        assertFalse(generator.resetToGenerated(5, 100, 1));
+        generator.generate(5, 100, 1);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<Map<String, Object>> employees = jdbcTemplate.queryForList("select * from employee order by id");
+        List<Map<String, Object>> companies = jdbcTemplate.queryForList("select * from company order by id");
+        jdbcTemplate.update("insert into employee (name, age, gender, salary) values ('Extra', 30, 'Male', 5000)");
+        jdbcTemplate.update("update employee set age = 64, salary = 9999 where id = (select max(id) - 10 from employee)");
+        jdbcTemplate.update("update employee set salary = salary + salary * 5 / 100, age = age + 1 "
+                + "where company_id = (select max(id) from company)");
+        jdbcTemplate.update("update company set name = 'Renamed' where id = (select max(id) from company)");
+
+        assertTrue(generator.resetToGenerated(5, 100, 1));
+        assertEquals(employees, jdbcTemplate.queryForList("select * from employee order by id"));
+        assertEquals(companies, jdbcTemplate.queryForList("select * from company order by id"));
+    }
+
+    private static DataSource migratedDatabase(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        return dataSource;
+    }
+}
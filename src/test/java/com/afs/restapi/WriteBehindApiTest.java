@@ -0,0 +1,292 @@
+package com.afs.restapi;
+
+import com.afs.restapi.config.WriteBehindProperties;
+import com.afs.restapi.entity.Company;
+import com.afs.restapi.entity.Employee;
+import com.afs.restapi.repository.ChangeEventRepository;
+import com.afs.restapi.repository.CompanyRepository;
+import com.afs.restapi.repository.EmployeeRepository;
+import com.afs.restapi.service.ChangeFeedService;
+import com.afs.restapi.service.EmployeeWriteBehindBuffer;
+import com.afs.restapi.service.ResponseCache;
+import com.afs.restapi.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@SpringBootTest(properties = {
+        "restapi.write-behind.enabled=true",
+        "restapi.write-behind.log-directory=build/tmp/write-behind-test",
+        "restapi.write-behind.flush-interval=PT1H"
+})
+@AutoConfigureMockMvc
+class WriteBehindApiTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+    @Autowired
+    private EmployeeWriteBehindBuffer writeBehindBuffer;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        writeBehindBuffer.flush();
+        employeeRepository.deleteAll();
+        companyRepository.deleteAll();
+        changeEventRepository.deleteAll();
+    }
+
+    @Test
+    @SqlStatementBudget(statements = 1)
+    void should_coalesce_buffered_updates_and_serve_them_before_flush() throws Exception {
+        Employee employee = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+
+        mockMvc.perform(put("/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\": 23}"))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+        mockMvc.perform(put("/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"salary\": 6000}"))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+
+        assertEquals(1, writeBehindBuffer.getPendingCount());
+        assertEquals(22, employeeRepository.findById(employee.getId()).orElseThrow().getAge());
+        mockMvc.perform(get("/employees/{id}", employee.getId()))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(23));
+
+        writeBehindBuffer.flush();
+
+        Employee flushed = employeeRepository.findById(employee.getId()).orElseThrow();
+        assertEquals(23, flushed.getAge());
+        assertEquals(6000, flushed.getSalary());
+        assertEquals(0, writeBehindBuffer.getPendingCount());
+        assertEquals(1, changeEventRepository.count());
+    }
+
+    @Test
+    void should_serve_buffered_updates_on_every_employee_read() throws Exception {
+        Company company = companyRepository.save(new Company(null, "OOCL"));
+        Employee unsaved = new Employee(null, "Bob", 22, "Male", 5000);
+        unsaved.setCompanyId(company.getId());
+        Employee employee = employeeRepository.save(unsaved);
+        mockMvc.perform(put("/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\": 23}"))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+
+        mockMvc.perform(get("/employees"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].age").value(23));
+        mockMvc.perform(get("/employees").param("gender", "Male"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].age").value(23));
+        mockMvc.perform(get("/employees").param("pageNumber", "1").param("pageSize", "1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].age").value(23));
+        mockMvc.perform(get("/companies/{id}/employees", company.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].age").value(23));
+        mockMvc.perform(get("/companies/{id}", company.getId()).param("include", "employees"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employees[0].age").value(23));
+        mockMvc.perform(get("/companies").param("include", "employees"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].employees[0].age").value(23));
+    }
+
+    @Test
+    void should_reject_buffered_update_of_unknown_employee() throws Exception {
+        Employee employee = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+
+        mockMvc.perform(put("/employees/{id}", employee.getId() + 100)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\": 23}"))
+                .andExpect(MockMvcResultMatchers.status().is(404));
+        assertEquals(0, writeBehindBuffer.getPendingCount());
+    }
+
+    @Test
+    void should_replay_acknowledged_updates_after_restart(@TempDir Path logDirectory) throws Exception {
+        Employee employee = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setLogDirectory(logDirectory);
+
+        EmployeeWriteBehindBuffer crashed = newBuffer(properties);
+        crashed.submit(employee.getId(), 30, null);
+        crashed.submit(employee.getId(), 31, 7000);
+
+        EmployeeWriteBehindBuffer restarted = newBuffer(properties);
+        assertEquals(1, restarted.getPendingCount());
+        restarted.flush();
+
+        Employee flushed = employeeRepository.findById(employee.getId()).orElseThrow();
+        assertEquals(31, flushed.getAge());
+        assertEquals(7000, flushed.getSalary());
+        restarted.destroy();
+        assertEquals(0, newBuffer(properties).getPendingCount());
+    }
+
+    @Test
+    void should_not_replay_flushed_update_over_a_later_adjustment(@TempDir Path logDirectory) throws Exception {
+        Employee bob = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+        Employee alice = employeeRepository.save(new Employee(null, "Alice", 24, "Female", 5000));
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setLogDirectory(logDirectory);
+        properties.setBatchSize(1);
+        AtomicInteger batches = new AtomicInteger();
+        EmployeeWriteBehindBuffer crashing = newBuffer(properties, new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                if (batches.incrementAndGet() == 2) {
+                    throw new IllegalStateException("crashed while flushing the second batch");
+                }
+                return super.batchUpdate(sql, batchArgs, batchSize, pss);
+            }
+        });
+        crashing.submit(bob.getId(), null, 7000);
+        crashing.submit(alice.getId(), 30, null);
+        assertThrows(IllegalStateException.class, crashing::flush);
+
+        mockMvc.perform(post("/employees/adjustments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"gender\":\"Male\",\"salaryRaisePercent\":10}"))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        EmployeeWriteBehindBuffer restarted = newBuffer(properties);
+        assertEquals(1, restarted.getPendingCount());
+        restarted.flush();
+
+        assertEquals(7700, employeeRepository.findById(bob.getId()).orElseThrow().getSalary());
+        assertEquals(30, employeeRepository.findById(alice.getId()).orElseThrow().getAge());
+    }
+
+    @Test
+    void should_skip_update_of_employee_deleted_before_flush() throws Exception {
+        Employee employee = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+        mockMvc.perform(put("/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\": 23}"))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+        jdbcTemplate.update("delete from employee where id = ?", employee.getId());
+
+        writeBehindBuffer.flush();
+
+        assertEquals(0, writeBehindBuffer.getPendingCount());
+        assertEquals(0, changeEventRepository.count());
+    }
+
+    @Test
+    void should_keep_updates_flushed_by_an_adjustment_of_a_rolled_back_batch() throws Exception {
+        Employee employee = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+        mockMvc.perform(put("/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"salary\": 6000}"))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+
+        performTransactionalBatch("{\"method\":\"POST\",\"path\":\"/employees/adjustments\","
+                + "\"body\":{\"gender\":\"Male\",\"salaryRaisePercent\":10}}")
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].status").value(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].body.affectedCount").value(1));
+
+        assertEquals(0, writeBehindBuffer.getPendingCount());
+        assertEquals(6000, employeeRepository.findById(employee.getId()).orElseThrow().getSalary());
+    }
+
+    @Test
+    void should_keep_pending_update_of_employee_whose_delete_rolled_back() throws Exception {
+        Employee employee = employeeRepository.save(new Employee(null, "Bob", 22, "Male", 5000));
+        mockMvc.perform(put("/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\": 23}"))
+                .andExpect(MockMvcResultMatchers.status().is(204));
+
+        performTransactionalBatch("{\"method\":\"DELETE\",\"path\":\"/employees/" + employee.getId() + "\"}")
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[0].status").value(204));
+
+        assertEquals(1, writeBehindBuffer.getPendingCount());
+        writeBehindBuffer.flush();
+        assertEquals(23, employeeRepository.findById(employee.getId()).orElseThrow().getAge());
+    }
+
+    @Test
+    void should_log_every_concurrently_submitted_update(@TempDir Path logDirectory) throws Exception {
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setLogDirectory(logDirectory);
+        EmployeeWriteBehindBuffer buffer = newBuffer(properties);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> submits = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            long employeeId = id;
+            submits.add(executor.submit(() -> buffer.submit(employeeId, 30, null)));
+        }
+        for (Future<?> submit : submits) {
+            submit.get();
+        }
+        executor.shutdown();
+
+        assertEquals(200, newBuffer(properties).getPendingCount());
+    }
+
+    /**
+     * Runs the sub-request in a transactional batch whose second sub-request fails, so the batch rolls back.
+     */
+    private ResultActions performTransactionalBatch(String subRequest) throws Exception {
+        return mockMvc.perform(post("/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"transactional\":true,\"requests\":[" + subRequest + ","
+                                + "{\"method\":\"PUT\",\"path\":\"/companies/0\",\"body\":{\"name\":\"Nobody\"}}]}"))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.responses[1].status").value(404))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rolledBack").value(true));
+    }
+
+    private EmployeeWriteBehindBuffer newBuffer(WriteBehindProperties properties) throws Exception {
+        return newBuffer(properties, jdbcTemplate);
+    }
+
+    private EmployeeWriteBehindBuffer newBuffer(WriteBehindProperties properties, JdbcTemplate writer) throws Exception {
+        EmployeeWriteBehindBuffer buffer = new EmployeeWriteBehindBuffer(properties, writer, transactionTemplate,
+                changeFeedService, shardRouter, responseCache, new SimpleMeterRegistry());
+        buffer.afterPropertiesSet();
+        return buffer;
+    }
+}
@@ -0,0 +1,147 @@
+package com.afs.restapi.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * One request builder per employee and company endpoint. Reads and updates pick ids uniformly from the
+ * seeded ranges; deletes only remove rows the load test created itself, so repeated runs keep the data set.
+ */
+public class LoadOperations {
+    public static final String DEFAULT_MIX = "employee.get=30,employee.multiGet=5,employee.page=10,"
+            + "employee.byGender=0,employee.list=0,employee.create=5,employee.update=10,employee.delete=2,"
+            + "employee.adjust=1,company.get=10,company.getWithEmployees=3,company.employees=3,company.multiGet=3,"
+            + "company.page=5,company.pageWithEmployees=2,company.list=0,company.create=2,company.update=3,"
+            + "company.delete=1";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int PAGE_SIZE = 20;
+    private static final int MULTI_GET_SIZE = 50;
+
+    private final String baseUrl;
+    private final long firstEmployeeId;
+    private final long lastEmployeeId;
+    private final long firstCompanyId;
+    private final long lastCompanyId;
+    private final ConcurrentLinkedQueue<Long> createdEmployeeIds = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> createdCompanyIds = new ConcurrentLinkedQueue<>();
+    private final Map<String, Function<SplittableRandom, HttpRequest>> operations = new LinkedHashMap<>();
+
+    public LoadOperations(String baseUrl, long firstEmployeeId, long lastEmployeeId,
+                          long firstCompanyId, long lastCompanyId) {
+        this.baseUrl = baseUrl;
+        this.firstEmployeeId = firstEmployeeId;
+        this.lastEmployeeId = lastEmployeeId;
+        this.firstCompanyId = firstCompanyId;
+        this.lastCompanyId = lastCompanyId;
+        operations.put("employee.get", random -> get("/employees/" + employeeId(random)));
+        operations.put("employee.multiGet", random -> get("/employees?ids=" + ids(random, true)));
+        operations.put("employee.page", random -> get("/employees?pageNumber=" + pageNumber(random, lastEmployeeId - firstEmployeeId) + "&pageSize=" + PAGE_SIZE));
+        operations.put("employee.byGender", random -> get("/employees?gender=" + (random.nextBoolean() ? "Male" : "Female")));
+        operations.put("employee.list", random -> get("/employees"));
+        operations.put("employee.create", random -> send("POST", "/employees",
+                "{\"name\":\"Load " + random.nextInt(1_000_000) + "\",\"age\":" + (20 + random.nextInt(45))
+                        + ",\"gender\":\"Female\",\"salary\":" + (3000 + random.nextInt(6000))
+                        + ",\"companyId\":" + companyId(random) + "}"));
+        operations.put("employee.update", random -> send("PUT", "/employees/" + employeeId(random),
+                "{\"age\":" + (20 + random.nextInt(45)) + ",\"salary\":" + (3000 + random.nextInt(6000)) + "}"));
+        operations.put("employee.delete", random -> deleteCreated("/employees/", createdEmployeeIds));
+        operations.put("employee.adjust", random -> send("POST", "/employees/adjustments",
+                "{\"companyId\":" + companyId(random) + ",\"ageIncrement\":0}"));
+        operations.put("company.get", random -> get("/companies/" + companyId(random)));
+        operations.put("company.getWithEmployees", random -> get("/companies/" + companyId(random) + "?include=employees"));
+        operations.put("company.employees", random -> get("/companies/" + companyId(random) + "/employees"));
+        operations.put("company.multiGet", random -> get("/companies?ids=" + ids(random, false)));
+        operations.put("company.page", random -> get("/companies?pageNumber=" + pageNumber(random, lastCompanyId - firstCompanyId) + "&pageSize=" + PAGE_SIZE));
+        operations.put("company.pageWithEmployees", random -> get("/companies?pageNumber=" + pageNumber(random, lastCompanyId - firstCompanyId) + "&pageSize=" + PAGE_SIZE + "&include=employees"));
+        operations.put("company.list", random -> get("/companies"));
+        operations.put("company.create", random -> send("POST", "/companies",
+                "{\"name\":\"Load " + random.nextInt(1_000_000) + "\"}"));
+        operations.put("company.update", random -> send("PUT", "/companies/" + companyId(random),
+                "{\"name\":\"Company " + random.nextInt(1_000_000) + "\"}"));
+        operations.put("company.delete", random -> deleteCreated("/companies/", createdCompanyIds));
+    }
+
+    /**
+     * Parses a mix such as {@code employee.get=30,company.page=5}; operations left out get weight 0.
+     */
+    public Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (!operations.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Unknown load operation " + parts[0] + ", known: " + operations.keySet());
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                weights.put(parts[0], weight);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Builds the request of the operation, or returns {@code null} when it has nothing to act on yet.
+     */
+    public HttpRequest build(String operation, SplittableRandom random) {
+        return operations.get(operation).apply(random);
+    }
+
+    /**
+     * Remembers rows created by the load test so that delete operations have something to remove.
+     */
+    public void created(String operation, long id) {
+        if (operation.equals("employee.create")) {
+            createdEmployeeIds.add(id);
+        } else if (operation.equals("company.create")) {
+            createdCompanyIds.add(id);
+        }
+    }
+
+    private long employeeId(SplittableRandom random) {
+        return random.nextLong(firstEmployeeId, lastEmployeeId + 1);
+    }
+
+    private long companyId(SplittableRandom random) {
+        return random.nextLong(firstCompanyId, lastCompanyId + 1);
+    }
+
+    private String ids(SplittableRandom random, boolean employees) {
+        return LongStream.range(0, MULTI_GET_SIZE)
+                .map(i -> employees ? employeeId(random) : companyId(random))
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private long pageNumber(SplittableRandom random, long rows) {
+        return 1 + random.nextLong(Math.max(1, rows / PAGE_SIZE));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest deleteCreated(String path, ConcurrentLinkedQueue<Long> createdIds) {
+        Long id = createdIds.poll();
+        if (id == null) {
+            return null;
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + path + id)).timeout(TIMEOUT).DELETE().build();
+    }
+}
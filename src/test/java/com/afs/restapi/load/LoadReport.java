@@ -0,0 +1,94 @@
+package com.afs.restapi.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and status codes per operation. Each client thread fills its own report; they are merged
+ * once the run is over, so recording needs no synchronization.
+ */
+public class LoadReport {
+    private final Duration duration;
+    private final Map<String, Samples> samples = new TreeMap<>();
+
+    public LoadReport(Duration duration) {
+        this.duration = duration;
+    }
+
+    public void record(String operation, int status, long elapsedNanos) {
+        samples.computeIfAbsent(operation, key -> new Samples()).add(status, elapsedNanos);
+    }
+
+    public void merge(LoadReport other) {
+        other.samples.forEach((operation, otherSamples) ->
+                samples.computeIfAbsent(operation, key -> new Samples()).addAll(otherSamples));
+    }
+
+    public String format(int threads, String mix) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d threads for %d s, mix %s%n", threads, duration.toSeconds(), mix));
+        report.append(String.format("%-26s %9s %9s %9s %9s %9s %9s %9s %s%n",
+                "operation", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors", "statuses"));
+        Samples total = new Samples();
+        samples.forEach((operation, operationSamples) -> {
+            report.append(row(operation, operationSamples));
+            total.addAll(operationSamples);
+        });
+        report.append(row("total", total));
+        return report.toString();
+    }
+
+    private String row(String operation, Samples operationSamples) {
+        long[] sorted = Arrays.copyOf(operationSamples.latencies, operationSamples.count);
+        Arrays.sort(sorted);
+        return String.format("%-26s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9d %s%n",
+                operation, operationSamples.count, operationSamples.count / (double) Math.max(1, duration.toSeconds()),
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)), millis(percentile(sorted, 0.99)),
+                millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]), operationSamples.errors(),
+                operationSamples.statuses);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, Integer> statuses = new TreeMap<>();
+
+        private void add(int status, long elapsedNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = elapsedNanos;
+            statuses.merge(status, 1, Integer::sum);
+        }
+
+        private void addAll(Samples other) {
+            for (int i = 0; i < other.count; i++) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = other.latencies[i];
+            }
+            other.statuses.forEach((status, statusCount) -> statuses.merge(status, statusCount, Integer::sum));
+        }
+
+        private int errors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() >= 400)
+                    .mapToInt(Map.Entry::getValue)
+                    .sum();
+        }
+    }
+}
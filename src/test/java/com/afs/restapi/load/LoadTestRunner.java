@@ -0,0 +1,147 @@
+package com.afs.restapi.load;
+
+import com.afs.restapi.RestapiApplication;
+import com.afs.restapi.service.IdExistenceFilters;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Starts the application on a file-backed H2 database seeded by {@link SyntheticDataGenerator}, drives the
+ * employee and company endpoints with a weighted operation mix from a fixed number of client threads and
+ * reports throughput and latency percentiles per operation. Run through {@code ./gradlew loadTest}.
+ * <p>
+ * Every client thread draws its operations and ids from a random generator seeded with {@code load.seed}
+ * plus its index, so two runs with the same settings send the same request sequence.
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        int companies = Integer.parseInt(System.getProperty("load.companies", "1000"));
+        long employees = Long.parseLong(System.getProperty("load.employees", "1000000"));
+        long seed = Long.parseLong(System.getProperty("load.seed", "42"));
+        int threads = Integer.parseInt(System.getProperty("load.threads", "16"));
+        Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT60S"));
+        String mix = System.getProperty("load.mix", LoadOperations.DEFAULT_MIX);
+        Path databaseFile = Path.of(System.getProperty("load.database-file", "build/loadtest/restapi")).toAbsolutePath();
+        Path reportDir = Path.of(System.getProperty("load.report-dir", "build/reports/load"));
+        Files.createDirectories(reportDir);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RestapiApplication.class)
+                .profiles("local-h2")
+                .properties("spring.datasource.url=jdbc:h2:file:" + databaseFile + ";MODE=MySQL",
+                        "spring.jpa.hibernate.ddl-auto=none",
+                        "spring.jpa.show-sql=false",
+                        "restapi.sql-budget.mode=log",
+                        "logging.level.root=WARN")
+                .run(args);
+        try {
+            DataSource dataSource = context.getBean(DataSource.class);
+            SyntheticDataGenerator generator = new SyntheticDataGenerator(dataSource);
+            if (!generator.resetToGenerated(companies, employees, seed)) {
+                long start = System.nanoTime();
+                generator.generate(companies, employees, seed);
+                System.out.printf("Generated %d companies and %d employees in %d ms%n",
+                        companies, employees, (System.nanoTime() - start) / 1_000_000);
+                IdExistenceFilters idExistenceFilters = context.getBean(IdExistenceFilters.class);
+                idExistenceFilters.rebuildEmployees();
+                idExistenceFilters.rebuildCompanies();
+            }
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            // only generated rows are read and updated, so the next reset can restore everything the run changed
+            long lastEmployeeId = jdbcTemplate.queryForObject("select max(id) from employee", Long.class);
+            long lastCompanyId = jdbcTemplate.queryForObject("select max(id) from company", Long.class);
+            LoadOperations operations = new LoadOperations("http://localhost:" + port,
+                    lastEmployeeId - employees + 1, lastEmployeeId, lastCompanyId - companies + 1, lastCompanyId);
+            Map<String, Integer> weights = operations.parseMix(mix);
+
+            LoadReport report = run(operations, weights, threads, seed, warmup, duration);
+            String text = report.format(threads, mix);
+            Files.writeString(reportDir.resolve("load-test.txt"), text);
+            System.out.print(text);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static LoadReport run(LoadOperations operations, Map<String, Integer> weights, int threads, long seed,
+                                  Duration warmup, Duration duration) throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(threads);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Future<LoadReport>> futures = new ArrayList<>();
+        for (int worker = 0; worker < threads; worker++) {
+            SplittableRandom random = new SplittableRandom(seed + worker);
+            futures.add(workers.submit(() -> drive(client, operations, weights, random, measureFrom, measureUntil)));
+        }
+        LoadReport report = new LoadReport(duration);
+        for (Future<LoadReport> future : futures) {
+            report.merge(future.get());
+        }
+        workers.shutdown();
+        clientExecutor.shutdown();
+        return report;
+    }
+
+    private static LoadReport drive(HttpClient client, LoadOperations operations, Map<String, Integer> weights,
+                                    SplittableRandom random, long measureFrom, long measureUntil) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        LoadReport report = new LoadReport(Duration.ofNanos(measureUntil - measureFrom));
+        int totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        while (System.nanoTime() < measureUntil) {
+            String operation = pick(weights, totalWeight, random);
+            HttpRequest request = operations.build(operation, random);
+            if (request == null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - start;
+            if (response.statusCode() == 201) {
+                JsonNode created = objectMapper.readTree(response.body());
+                operations.created(operation, created.get("id").asLong());
+            }
+            if (start >= measureFrom) {
+                report.record(operation, response.statusCode(), elapsed);
+            }
+        }
+        return report;
+    }
+
+    private static String pick(Map<String, Integer> weights, int totalWeight, SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            ticket -= weight.getValue();
+            if (ticket < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty load mix");
+    }
+}
@@ -0,0 +1,123 @@
+package com.afs.restapi.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeds companies and employees into H2 with set-based {@code INSERT ... SELECT FROM SYSTEM_RANGE}
+ * statements, so millions of rows take seconds instead of one round trip per row. Every column is a pure
+ * function of the row number and the seed, which makes a data set fully reproducible.
+ */
+public class SyntheticDataGenerator {
+    private static final long BATCH_SIZE = 500_000;
+    private static final long SEED_MODULUS = 1_000_003;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SyntheticDataGenerator(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Returns whether {@link #generate} already ran against this database with the same parameters, after
+     * deleting the rows added since and recomputing every column of the generated rows, which undoes the
+     * updates and adjustments of an earlier load test and lets a file-backed database be reused between
+     * runs. Rows that existed before the generator ran are left as they are.
+     */
+    public boolean resetToGenerated(int companies, long employees, long seed) {
+        createDataSetTable();
+        List<Map<String, Object>> dataSets = jdbcTemplate.queryForList(
+                "select last_company_id, last_employee_id from synthetic_data_set "
+                        + "where companies = ? and employees = ? and seed = ?",
+                companies, employees, seed);
+        if (dataSets.isEmpty()) {
+            return false;
+        }
+        long lastEmployeeId = ((Number) dataSets.get(0).get("LAST_EMPLOYEE_ID")).longValue();
+        long lastCompanyId = ((Number) dataSets.get(0).get("LAST_COMPANY_ID")).longValue();
+        jdbcTemplate.update("delete from employee where id > ?", lastEmployeeId);
+        jdbcTemplate.update("delete from company where id > ?", lastCompanyId);
+
+        long salt = Math.floorMod(seed, SEED_MODULUS);
+        long companyOffset = lastCompanyId - companies;
+        jdbcTemplate.update("update company set " + assignments(companyColumns(rowNumber(companyOffset)))
+                + " where id > ?", companyOffset);
+        long employeeOffset = lastEmployeeId - employees;
+        Map<String, String> employeeColumns = employeeColumns(rowNumber(employeeOffset), salt, companyOffset + 1, companies);
+        for (long from = 1; from <= employees; from += BATCH_SIZE) {
+            long to = Math.min(employees, from + BATCH_SIZE - 1);
+            jdbcTemplate.update("update employee set " + assignments(employeeColumns) + " where id between ? and ?",
+                    employeeOffset + from, employeeOffset + to);
+        }
+        return true;
+    }
+
+    public void generate(int companies, long employees, long seed) {
+        long salt = Math.floorMod(seed, SEED_MODULUS);
+        jdbcTemplate.update(insert("company", companyColumns("x")), 1, companies);
+        Long lastCompanyId = jdbcTemplate.queryForObject("select max(id) from company", Long.class);
+        long firstCompanyId = lastCompanyId - companies + 1;
+        String insertEmployees = insert("employee", employeeColumns("x", salt, firstCompanyId, companies));
+        for (long from = 1; from <= employees; from += BATCH_SIZE) {
+            long to = Math.min(employees, from + BATCH_SIZE - 1);
+            jdbcTemplate.update(insertEmployees, from, to);
+        }
+        createDataSetTable();
+        jdbcTemplate.update("insert into synthetic_data_set (companies, employees, seed, last_company_id, last_employee_id) "
+                        + "values (?, ?, ?, ?, (select max(id) from employee))",
+                companies, employees, seed, lastCompanyId);
+    }
+
+    /**
+     * Column expressions of the {@code x}-th generated company.
+     */
+    private static Map<String, String> companyColumns(String x) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("name", "concat('Company ', " + x + ")");
+        return columns;
+    }
+
+    /**
+     * Column expressions of the {@code x}-th generated employee. The values are numbers computed here, not
+     * input, so they are inlined to share the expressions between the INSERT and the reset UPDATE.
+     */
+    private static Map<String, String> employeeColumns(String x, long salt, long firstCompanyId, int companies) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("name", "concat('Employee ', " + x + ")");
+        columns.put("age", "20 + mod(" + x + " * 7919 + " + salt + ", 45)");
+        columns.put("gender", "case when mod(" + x + " * 104729 + " + salt + ", 2) = 0 then 'Female' else 'Male' end");
+        columns.put("salary", "3000 + mod(" + x + " * 15485863 + " + salt + ", 120) * 50");
+        columns.put("company_id", firstCompanyId + " + mod(" + x + " * 2654435761 + " + salt + ", " + companies + ")");
+        return columns;
+    }
+
+    /**
+     * The generated row number of a row, as a BIGINT like {@code system_range} hands it out, so the
+     * expressions overflow nowhere the INSERT did not.
+     */
+    private static String rowNumber(long idOffset) {
+        return "cast(id - " + idOffset + " as bigint)";
+    }
+
+    private static String insert(String table, Map<String, String> columns) {
+        return "insert into " + table + " (" + String.join(", ", columns.keySet()) + ") "
+                + "select " + String.join(", ", columns.values()) + " from system_range(?, ?)";
+    }
+
+    private static String assignments(Map<String, String> columns) {
+        StringBuilder assignments = new StringBuilder();
+        columns.forEach((column, expression) -> assignments.append(assignments.length() == 0 ? "" : ", ")
+                .append(column).append(" = ").append(expression));
+        return assignments.toString();
+    }
+
+    private void createDataSetTable() {
+        jdbcTemplate.execute("create table if not exists synthetic_data_set "
+                + "(companies int not null, employees bigint not null, seed bigint not null, "
+                + "last_company_id bigint not null, last_employee_id bigint not null)");
+    }
+}
@@ -0,0 +1,90 @@
+package com.afs.restapi.startup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Starts the application repeatedly in the default and the fast-startup mode and compares the median
+ * time-to-ready and the slowest startup steps. Run through {@code ./gradlew startupBenchmark}.
+ * <p>
+ * The comparison is only meaningful on the machine it runs on, so the repository keeps no reference
+ * numbers: the fast-startup mode is claimed to start the context with fewer eager beans and no schema or
+ * checksum validation, not to reach a particular time-to-ready.
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String classpath = System.getProperty("startup.classpath");
+        Path cdsArchive = Path.of(System.getProperty("startup.cds-archive"));
+        int iterations = Integer.parseInt(System.getProperty("startup.iterations", "5"));
+        Path reportDir = Path.of(System.getProperty("startup.report-dir", "build/reports/startup"));
+        Files.createDirectories(reportDir);
+
+        List<Properties> baseline = run(classpath, reportDir, "baseline", iterations, List.of(), "local-h2");
+        List<Properties> fast = run(classpath, reportDir, "fast", iterations,
+                List.of("-XX:SharedArchiveFile=" + cdsArchive, "-Xshare:auto"), "fast-startup,local-h2");
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-60s %12s %12s%n", "median over " + iterations + " starts (ms)", "baseline", "fast"));
+        report.append(String.format("%-60s %12d %12d%n", "time to ready", median(baseline, "ready.millis"), median(fast, "ready.millis")));
+        Map<String, Boolean> keys = new TreeMap<>();
+        baseline.forEach(run -> run.stringPropertyNames().forEach(key -> keys.put(key, true)));
+        fast.forEach(run -> run.stringPropertyNames().forEach(key -> keys.put(key, true)));
+        for (String key : keys.keySet()) {
+            if (!key.equals("ready.millis")) {
+                report.append(String.format("%-60s %12d %12d%n", key.replace(".millis", ""),
+                        median(baseline, key), median(fast, key)));
+            }
+        }
+        Files.writeString(reportDir.resolve("startup-benchmark.txt"), report);
+        System.out.print(report);
+    }
+
+    private static List<Properties> run(String classpath, Path reportDir, String mode, int iterations,
+                                        List<String> jvmArgs, String profiles) throws IOException, InterruptedException {
+        List<Properties> reports = new ArrayList<>();
+        for (int i = 0; i < iterations; i++) {
+            Path reportFile = reportDir.resolve(mode + "-" + i + ".properties");
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmArgs);
+            command.add("-Drestapi.startup.profiling=true");
+            command.add("-cp");
+            command.add(classpath);
+            command.add("com.afs.restapi.RestapiApplication");
+            command.add("--spring.profiles.active=" + profiles);
+            command.add("--restapi.startup.exit-after-ready=true");
+            command.add("--restapi.startup.report-file=" + reportFile);
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(reportDir.resolve(mode + "-" + i + ".log").toFile())
+                    .start();
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException(mode + " start " + i + " failed, see " + mode + "-" + i + ".log");
+            }
+            Properties report = new Properties();
+            try (InputStream inputStream = Files.newInputStream(reportFile)) {
+                report.load(inputStream);
+            }
+            reports.add(report);
+        }
+        return reports;
+    }
+
+    private static long median(List<Properties> reports, String key) {
+        List<Long> values = new ArrayList<>();
+        for (Properties report : reports) {
+            values.add(Long.parseLong(report.getProperty(key, "0")));
+        }
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+}